@@ -3,6 +3,8 @@ package com.backend.perfumes.config;
 import com.backend.perfumes.filter.JwtAuthenticationFilter;
 import com.backend.perfumes.services.JwtService;
 import com.backend.perfumes.services.UserDetailService;
+import com.backend.perfumes.services.UserPrincipalCache;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -28,20 +30,25 @@ public class SecurityConfig {
 
     private final JwtService jwtService;
     private final UserDetailService userDetailService;
+    private final UserPrincipalCache userPrincipalCache;
 
-    public SecurityConfig(JwtService jwtService, UserDetailService userDetailService) {
+    public SecurityConfig(JwtService jwtService, UserDetailService userDetailService,
+                          UserPrincipalCache userPrincipalCache) {
         this.jwtService = jwtService;
         this.userDetailService = userDetailService;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtService, userDetailService);
+        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtService, userPrincipalCache);
 
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Despachos asíncronos (SSE): la solicitud original ya fue autorizada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/upload/**").permitAll()
                         .requestMatchers("/uploads/**").permitAll()
@@ -1,20 +1,28 @@
 package com.backend.perfumes.controller;
 
 import com.backend.perfumes.dto.BrandDTO;
+import com.backend.perfumes.dto.BrandDashboardDTO;
 import com.backend.perfumes.dto.PerfumeDTO;
+import com.backend.perfumes.exceptions.BusinessException;
 import com.backend.perfumes.model.Brand;
-import com.backend.perfumes.model.Genre;
 import com.backend.perfumes.model.ModerationStatus;
 import com.backend.perfumes.model.Perfume;
 import com.backend.perfumes.services.BrandService;
+import com.backend.perfumes.services.FileStorageService;
+import com.backend.perfumes.services.MultipartUploadReader;
 import com.backend.perfumes.services.PerfumeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -26,40 +34,22 @@ public class BrandController {
 
     private final BrandService brandService;
     private final PerfumeService perfumeService;
+    private final MultipartUploadReader multipartUploadReader;
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
 
-    public BrandController(BrandService brandService, PerfumeService perfumeService) {
+    public BrandController(BrandService brandService, PerfumeService perfumeService,
+                           MultipartUploadReader multipartUploadReader, FileStorageService fileStorageService,
+                           ObjectMapper objectMapper) {
         this.brandService = brandService;
         this.perfumeService = perfumeService;
+        this.multipartUploadReader = multipartUploadReader;
+        this.fileStorageService = fileStorageService;
+        this.objectMapper = objectMapper;
     }
 
     private PerfumeDTO convertToDto(Perfume perfume) {
-        PerfumeDTO dto = new PerfumeDTO();
-        dto.setId(perfume.getId());
-        dto.setName(perfume.getName());
-        dto.setDescription(perfume.getDescription());
-        dto.setPrice(perfume.getPrice());
-        dto.setStock(perfume.getStock());
-        dto.setSizeMl(perfume.getSizeMl());
-        dto.setGenre(Genre.valueOf(perfume.getGenre().name()));
-        dto.setReleaseDate(perfume.getReleaseDate());
-        dto.setBrandId(perfume.getBrand().getId());
-        dto.setCategoryId(perfume.getCategory().getId());
-        dto.setImageUrl(perfume.getImageUrl());
-        dto.setModerationStatus(perfume.getModerationStatus());
-        dto.setRejectionReason(perfume.getRejectionReason());
-
-        if (perfume.getUser() != null) {
-            dto.setCreador(perfume.getUser().getUsername());
-        }
-
-        if (perfume.getBrand() != null) {
-            dto.setBrandName(perfume.getBrand().getName());
-        }
-        if (perfume.getCategory() != null) {
-            dto.setCategoryName(perfume.getCategory().getName());
-        }
-
-        return dto;
+        return PerfumeDTO.fromEntity(perfume);
     }
 
 
@@ -99,16 +89,30 @@ public class BrandController {
     @PostMapping(value = "/mis-marcas/con-imagen", consumes = "multipart/form-data")
     @PreAuthorize("hasAnyRole('ADMIN', 'VENDEDOR')")
     public ResponseEntity<?> crearMiMarcaConImagen(
-            @RequestPart("brand") BrandDTO brandDTO,
-            @RequestPart("imagen") MultipartFile imagen,
+            HttpServletRequest request,
             @AuthenticationPrincipal UserDetails userDetails) {
         try {
+            // Partes "brand" (JSON) e "imagen", leídas en el orden en que llegan
+            MultipartUploadReader.Upload upload = multipartUploadReader.read(request, "imagen");
             Brand brand = new Brand();
-            brand.setName(brandDTO.getName());
-            brand.setDescription(brandDTO.getDescription());
-            brand.setCountryOrigin(brandDTO.getCountryOrigin());
+            try {
+                String brandJson = upload.fields().get("brand");
+                if (brandJson == null) {
+                    throw new BusinessException("Falta la parte 'brand' con los datos de la marca");
+                }
+                BrandDTO brandDTO = objectMapper.readValue(brandJson, BrandDTO.class);
+                brand.setName(brandDTO.getName());
+                brand.setDescription(brandDTO.getDescription());
+                brand.setCountryOrigin(brandDTO.getCountryOrigin());
+            } catch (IOException | RuntimeException e) {
+                // La imagen ya se guardó al leer el formulario
+                if (upload.fileUrl() != null) {
+                    fileStorageService.deleteFile(upload.fileUrl());
+                }
+                throw e;
+            }
 
-            Brand nueva = brandService.crearBrandConImagen(brand, userDetails.getUsername(), imagen);
+            Brand nueva = brandService.crearBrandConImagen(brand, userDetails.getUsername(), upload.fileUrl());
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
@@ -121,6 +125,11 @@ public class BrandController {
                                     nueva.getRejectionReason() != null ? nueva.getRejectionReason() : "En revisión"
                     )
             ));
+        } catch (BusinessException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
                     "status", "error",
@@ -134,61 +143,22 @@ public class BrandController {
     public ResponseEntity<?> listarMisMarcas(
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestParam(value = "filtro", required = false) String filtro,
-            @RequestParam(value = "status", required = false) ModerationStatus status) {
+            @RequestParam(value = "status", required = false) ModerationStatus status,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
         try {
-            List<Brand> marcas;
-            if (filtro != null && !filtro.isEmpty()) {
-                marcas = brandService.listarBrandsPorUsuarioConFiltro(userDetails.getUsername(), filtro);
-            } else {
-                marcas = brandService.listarBrandsPorUsuario(userDetails.getUsername());
-            }
-
-            if (status != null) {
-                marcas = marcas.stream()
-                        .filter(marca -> marca.getModerationStatus() == status)
-                        .collect(Collectors.toList());
-            }
-
-            List<BrandDTO> marcasDTO = marcas.stream()
-                    .map(marca -> {
-                        List<Perfume> perfumes = perfumeService.obtenerPerfumesPorMarcaYUsuario(
-                                marca.getId(), userDetails.getUsername(), null);
-
-                        List<PerfumeDTO> perfumesDTO = perfumes.stream()
-                                .map(this::convertToDto)
-                                .collect(Collectors.toList());
-
-                        BrandDTO dto = new BrandDTO();
-                        dto.setId(marca.getId());
-                        dto.setName(marca.getName());
-                        dto.setDescription(marca.getDescription());
-                        dto.setCountryOrigin(marca.getCountryOrigin());
-                        dto.setCreador(marca.getUser().getUsername());
-                        dto.setPerfumes(perfumesDTO);
-                        dto.setTotalPerfumes(perfumesDTO.size());
-                        dto.setImageUrl(marca.getImageUrl());
-                        dto.setModerationStatus(marca.getModerationStatus());
-                        dto.setRejectionReason(marca.getRejectionReason());
-
-                        return dto;
-                    })
-                    .collect(Collectors.toList());
-
-            long totalAprobadas = marcas.stream().filter(m -> m.getModerationStatus() == ModerationStatus.APPROVED).count();
-            long totalPendientes = marcas.stream().filter(m -> m.getModerationStatus() == ModerationStatus.PENDING_REVIEW).count();
-            long totalRechazadas = marcas.stream().filter(m -> m.getModerationStatus() == ModerationStatus.REJECTED).count();
-            long totalBorradores = marcas.stream().filter(m -> m.getModerationStatus() == ModerationStatus.DRAFT).count();
+            BrandDashboardDTO panel = brandService.obtenerPanelMarcas(
+                    userDetails.getUsername(), filtro, status, PageRequest.of(page, size, Sort.by("id")));
+            Page<BrandDTO> marcasDTO = panel.getMarcas();
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
-                    "data", marcasDTO,
-                    "total", marcasDTO.size(),
-                    "moderationStats", Map.of(
-                            "approved", totalAprobadas,
-                            "pending", totalPendientes,
-                            "rejected", totalRechazadas,
-                            "draft", totalBorradores
-                    )
+                    "data", marcasDTO.getContent(),
+                    "total", marcasDTO.getTotalElements(),
+                    "page", marcasDTO.getNumber(),
+                    "size", marcasDTO.getSize(),
+                    "totalPages", marcasDTO.getTotalPages(),
+                    "moderationStats", panel.getModerationStats()
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
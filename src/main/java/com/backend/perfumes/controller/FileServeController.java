@@ -1,106 +1,211 @@
 package com.backend.perfumes.controller;
 
+import com.backend.perfumes.model.ImageVariant;
 import com.backend.perfumes.services.FileStorageService;
+import com.backend.perfumes.services.ImageDerivativeService;
+import com.backend.perfumes.services.UploadMetadataIndex;
+import com.backend.perfumes.services.UploadMetadataIndex.FileMetadata;
+import com.backend.perfumes.utils.ByteRange;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sirve {@code /uploads/**}. Tipo, tamaño y ETag salen de {@link UploadMetadataIndex}, así
+ * que un acierto cuesta un {@code stat}. Con ETag o fecha vigentes responde 304 sin cuerpo;
+ * si no, el cuerpo lo envía Tomcat con sendfile cuando el conector lo admite, y si no, se
+ * copia desde un {@link FileChannel}. Atiende {@code Range} con uno o varios tramos (206)
+ * y responde 416 si ninguno cae dentro del fichero.
+ */
 @RestController
 @RequestMapping("/uploads")
 @CrossOrigin(origins = "*")
 public class FileServeController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Value("${file.upload-dir}")
     private String uploadDir;
 
+    @Value("${app.uploads.sendfile:true}")
+    private boolean sendfileEnabled;
+
     private final FileStorageService fileStorageService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final UploadMetadataIndex uploadMetadataIndex;
 
-    public FileServeController(FileStorageService fileStorageService) {
+    public FileServeController(FileStorageService fileStorageService, ImageDerivativeService imageDerivativeService,
+                               UploadMetadataIndex uploadMetadataIndex) {
         this.fileStorageService = fileStorageService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.uploadMetadataIndex = uploadMetadataIndex;
     }
 
     @GetMapping("/{filename:.+}")
-    public ResponseEntity<Resource> serveFile(@PathVariable String filename) {
+    public void serveFile(@PathVariable String filename,
+                          @RequestParam(value = "size", required = false) String size,
+                          HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        ImageVariant variant = ImageVariant.fromParam(size);
+        Path filePath = null;
+        FileMetadata metadata = null;
         try {
             // Limpiar el nombre del archivo por seguridad
             String cleanFilename = Paths.get(filename).getFileName().toString();
 
-            Path filePath = Paths.get(uploadDir).resolve(cleanFilename).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
+            // Variante reducida si se pidió y ya está generada; si no, el original
+            Path derivative = variant != null ? imageDerivativeService.resolve(cleanFilename, variant) : null;
+            filePath = derivative != null ? derivative : Paths.get(uploadDir).resolve(cleanFilename).normalize();
+            metadata = uploadMetadataIndex.lookup(filePath);
+        } catch (InvalidPathException e) {
+            // Nombre imposible: se trata como inexistente
+        }
+
+        if (metadata == null) {
+            // Si el archivo no existe, servir imagen por defecto
+            metadata = uploadMetadataIndex.lookup(Paths.get(uploadDir).resolve("default-brand.jpg"));
+            if (metadata == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+        }
+
+        // Solo la URL exacta de un contenido direccionado por hash no puede cambiar nunca
+        boolean immutable = metadata.contentAddressed() && variant == null && metadata.path().equals(filePath);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? "public, max-age=31536000, immutable" : "max-age=3600");
+        if (new ServletWebRequest(request, response).checkNotModified(metadata.etag(), metadata.lastModified())) {
+            return;
+        }
 
-            if (resource.exists() && resource.isReadable()) {
-                // Determinar el tipo de contenido
-                String contentType = determineContentType(cleanFilename);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        List<ByteRange> ranges = rangeApplies(request, metadata)
+                ? ByteRange.parse(request.getHeader(HttpHeaders.RANGE), metadata.length())
+                : null;
 
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CACHE_CONTROL, "max-age=3600")
-                        .body(resource);
-            } else {
-                // Si el archivo no existe, servir imagen por defecto
-                return serveDefaultImage(cleanFilename);
+        if (ranges == null) {
+            response.setContentType(metadata.contentType());
+            response.setContentLengthLong(metadata.length());
+            if (!"HEAD".equals(request.getMethod())) {
+                transfer(request, response, metadata, new ByteRange(0, metadata.length() - 1));
             }
-        } catch (Exception e) {
-            return serveDefaultImage(filename);
+        } else if (ranges.isEmpty()) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + metadata.length());
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(metadata.contentType());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, range.contentRange(metadata.length()));
+            response.setContentLengthLong(range.length());
+            if (!"HEAD".equals(request.getMethod())) {
+                transfer(request, response, metadata, range);
+            }
+        } else {
+            writeMultipart(request, response, metadata, ranges);
         }
     }
 
-    private String determineContentType(String filename) {
-        String contentType;
+    /**
+     * {@code If-Range} solo deja pasar el {@code Range} si el fichero sigue siendo el que el
+     * cliente empezó a descargar; si no, se manda entero.
+     */
+    private static boolean rangeApplies(HttpServletRequest request, FileMetadata metadata) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(metadata.etag());
+        }
         try {
-            Path filePath = Paths.get(uploadDir).resolve(filename).normalize();
-            contentType = Files.probeContentType(filePath);
-        } catch (IOException e) {
-            contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == metadata.lastModified() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void writeMultipart(HttpServletRequest request, HttpServletResponse response,
+                                FileMetadata metadata, List<ByteRange> ranges) throws IOException {
+        String boundary = UUID.randomUUID().toString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        long contentLength = closing.length;
+        for (ByteRange range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + metadata.contentType() + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + range.contentRange(metadata.length()) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range.length();
         }
 
-        if (contentType == null) {
-            if (filename.toLowerCase().endsWith(".jpg") || filename.toLowerCase().endsWith(".jpeg")) {
-                contentType = "image/jpeg";
-            } else if (filename.toLowerCase().endsWith(".png")) {
-                contentType = "image/png";
-            } else if (filename.toLowerCase().endsWith(".gif")) {
-                contentType = "image/gif";
-            } else if (filename.toLowerCase().endsWith(".webp")) {
-                contentType = "image/webp";
-            } else {
-                contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel channelOut = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(metadata.path(), StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                copy(channel, channelOut, ranges.get(i));
             }
         }
-        return contentType;
+        out.write(closing);
     }
 
-    private ResponseEntity<Resource> serveDefaultImage(String requestedFilename) {
-        try {
-            String defaultFilename;
-            if (requestedFilename.contains("brand")) {
-                defaultFilename = "default-brand.jpg";
-            } else {
-                defaultFilename = "default-brand.jpg";
-            }
+    private void transfer(HttpServletRequest request, HttpServletResponse response,
+                          FileMetadata metadata, ByteRange range) throws IOException {
+        if (range.length() <= 0) {
+            return;
+        }
+        if (sendfileEnabled && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat envía el tramo del disco al socket al volver del controlador
+            request.setAttribute(SENDFILE_FILENAME, metadata.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
 
-            Path defaultPath = Paths.get(uploadDir).resolve(defaultFilename).normalize();
-            Resource resource = new UrlResource(defaultPath.toUri());
+        try (FileChannel channel = FileChannel.open(metadata.path(), StandardOpenOption.READ)) {
+            copy(channel, Channels.newChannel(response.getOutputStream()), range);
+        }
+    }
 
-            if (resource.exists()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.IMAGE_JPEG)
-                        .body(resource);
+    // Lecturas posicionales: no mueven la posición del canal ni dependen de lo ya leído
+    private static void copy(FileChannel channel, WritableByteChannel out, ByteRange range) throws IOException {
+        long position = range.start();
+        long end = range.end() + 1;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, out);
+            if (sent <= 0) {
+                // El fichero se acortó mientras se enviaba
+                break;
             }
-        } catch (Exception e) {
-            // Fallback absoluto
+            position += sent;
         }
-
-        // Si todo falla, retornar 404
-        return ResponseEntity.notFound().build();
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,11 @@
 package com.backend.perfumes.controller;
 
-import com.backend.perfumes.services.FileStorageService;
+import com.backend.perfumes.exceptions.BusinessException;
+import com.backend.perfumes.services.MultipartUploadReader;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.Map;
@@ -14,39 +15,28 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class FileUploadController {
 
-    private final FileStorageService fileStorageService;
+    private final MultipartUploadReader multipartUploadReader;
 
     @Value("${server.url:http://localhost:8080}")
     private String serverUrl;
 
-    public FileUploadController(FileStorageService fileStorageService) {
-        this.fileStorageService = fileStorageService;
+    public FileUploadController(MultipartUploadReader multipartUploadReader) {
+        this.multipartUploadReader = multipartUploadReader;
     }
 
     @PostMapping("/image")
-    public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file) {
-        System.out.println("=== UPLOAD DEBUG ===");
-        System.out.println("File name: " + file.getOriginalFilename());
-        System.out.println("File size: " + file.getSize());
-        System.out.println("Content type: " + file.getContentType());
-
+    public ResponseEntity<?> uploadImage(HttpServletRequest request) {
         try {
-            if (file.isEmpty()) {
+            // El campo "file" se guarda mientras llega; el tipo se comprueba por sus primeros bytes
+            MultipartUploadReader.Upload upload = multipartUploadReader.read(request, "file");
+            if (upload.fileUrl() == null) {
                 return ResponseEntity.badRequest().body(Map.of(
                         "status", "error",
                         "message", "El archivo está vacío"
                 ));
             }
 
-            String contentType = file.getContentType();
-            if (contentType == null || !contentType.startsWith("image/")) {
-                return ResponseEntity.badRequest().body(Map.of(
-                        "status", "error",
-                        "message", "Solo se permiten archivos de imagen"
-                ));
-            }
-
-            String filePath = fileStorageService.storeFile(file);
+            String filePath = upload.fileUrl();
 
             String fullImageUrl = serverUrl + filePath;
 
@@ -58,7 +48,13 @@ public class FileUploadController {
                     "message", "Imagen subida exitosamente",
                     "filePath", filePath,
                     "fileUrl", fullImageUrl,
-                    "fileName", file.getOriginalFilename()
+                    "fileName", upload.originalFilename()
+            ));
+
+        } catch (BusinessException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
             ));
 
         } catch (IOException e) {
@@ -0,0 +1,94 @@
+package com.backend.perfumes.controller;
+
+import com.backend.perfumes.exceptions.BusinessException;
+import com.backend.perfumes.model.ModerationWord;
+import com.backend.perfumes.model.ModerationWordCategory;
+import com.backend.perfumes.services.ModerationDictionaryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/moderation/words")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Moderation", description = "Diccionario de moderación automática")
+public class ModerationDictionaryController {
+
+    private final ModerationDictionaryService moderationDictionaryService;
+
+    @GetMapping
+    @Operation(summary = "Listar palabras del diccionario de moderación")
+    public ResponseEntity<?> getWords(@RequestParam(value = "category", required = false) ModerationWordCategory category) {
+        List<ModerationWord> words = moderationDictionaryService.getWords(category);
+
+        return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "data", words,
+                "total", words.size(),
+                "timestamp", LocalDateTime.now()
+        ));
+    }
+
+    @PostMapping
+    @Operation(summary = "Añadir o recategorizar una palabra", description = "Se aplica sin reiniciar ni detener la moderación")
+    public ResponseEntity<?> saveWord(@RequestParam("word") String word,
+                                      @RequestParam("category") ModerationWordCategory category) {
+        try {
+            ModerationWord saved = moderationDictionaryService.saveWord(word, category);
+
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "data", saved,
+                    "timestamp", LocalDateTime.now()
+            ));
+
+        } catch (BusinessException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage(),
+                    "timestamp", LocalDateTime.now()
+            ));
+        }
+    }
+
+    @DeleteMapping("/{word}")
+    @Operation(summary = "Eliminar una palabra del diccionario")
+    public ResponseEntity<?> deleteWord(@PathVariable String word) {
+        try {
+            moderationDictionaryService.deleteWord(word);
+
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "message", "Palabra eliminada",
+                    "timestamp", LocalDateTime.now()
+            ));
+
+        } catch (BusinessException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage(),
+                    "timestamp", LocalDateTime.now()
+            ));
+        }
+    }
+
+    @PostMapping("/reload")
+    @Operation(summary = "Recargar el diccionario desde la base de datos")
+    public ResponseEntity<?> reload() {
+        int words = moderationDictionaryService.reload();
+
+        return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "words", words,
+                "timestamp", LocalDateTime.now()
+        ));
+    }
+}
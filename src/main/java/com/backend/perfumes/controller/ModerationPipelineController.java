@@ -0,0 +1,35 @@
+package com.backend.perfumes.controller;
+
+import com.backend.perfumes.services.ModerationPipeline;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/moderation/pipeline")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Moderation", description = "Diccionario de moderación automática")
+public class ModerationPipelineController {
+
+    private final ModerationPipeline moderationPipeline;
+
+    @GetMapping("/metrics")
+    @Operation(summary = "Estado de la cola de moderación",
+            description = "Tamaño de la cola, hilos ocupados, lotes procesados y moderaciones hechas por quien publica cuando la cola estaba llena")
+    public ResponseEntity<?> getMetrics() {
+        return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "data", moderationPipeline.metrics(),
+                "timestamp", LocalDateTime.now()
+        ));
+    }
+}
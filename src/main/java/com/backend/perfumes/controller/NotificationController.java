@@ -1,6 +1,9 @@
 // NotificationController.java
 package com.backend.perfumes.controller;
 
+import com.backend.perfumes.dto.CursorPage;
+import com.backend.perfumes.model.Notification;
+import com.backend.perfumes.services.NotificationRetentionService;
 import com.backend.perfumes.services.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,11 +12,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
@@ -27,6 +32,15 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationRetentionService notificationRetentionService;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Suscribirse a notificaciones en vivo (SSE)",
+            description = "Emite eventos 'notification' y 'unread-count' a medida que se crean o se leen")
+    public SseEmitter streamNotifications(@AuthenticationPrincipal UserDetails userDetails) {
+        return notificationService.subscribe(userDetails.getUsername());
+    }
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
@@ -34,26 +48,50 @@ public class NotificationController {
     public ResponseEntity<?> getNotifications(
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal,
+            @RequestParam(value = "archived", defaultValue = "false") boolean archived,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         try {
+            if (archived) {
+                Page<Map<String, Object>> notifications = notificationService.getArchivedNotifications(
+                        userDetails.getUsername(), PageRequest.of(page, size));
+
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("status", "success");
+                response.put("data", notifications.getContent());
+                response.put("meta", Map.of(
+                        "total", notifications.getTotalElements(),
+                        "page", notifications.getNumber(),
+                        "size", notifications.getSize(),
+                        "totalPages", notifications.getTotalPages(),
+                        "archived", true
+                ));
+                response.put("timestamp", LocalDateTime.now());
+                return ResponseEntity.ok(response);
+            }
+
+            if (cursor != null) {
+                CursorPage<Notification> notifications = notificationService.getUserNotificationsKeyset(
+                        userDetails.getUsername(), cursor, size, includeTotal);
+
+                Map<String, Object> meta = notifications.meta();
+                meta.put("unreadCount", notificationService.getUnreadCount(userDetails));
+
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("status", "success");
+                response.put("data", notifications.getContent().stream().map(this::toNotificationMap).toList());
+                response.put("meta", meta);
+                response.put("timestamp", LocalDateTime.now());
+                return ResponseEntity.ok(response);
+            }
+
             Pageable pageable = PageRequest.of(page, size);
             Page<Object> notifications = notificationService.getUserNotifications(userDetails.getUsername(), pageable)
-                    .map(notification -> {
-                        Map<String, Object> notifMap = new LinkedHashMap<>();
-                        notifMap.put("id", notification.getId());
-                        notifMap.put("title", notification.getTitle());
-                        notifMap.put("message", notification.getMessage());
-                        notifMap.put("type", notification.getType());
-                        notifMap.put("isRead", notification.isRead());
-                        notifMap.put("createdAt", notification.getCreatedAt());
-                        if (notification.getOrder() != null) {
-                            notifMap.put("orderNumber", notification.getOrder().getOrderNumber());
-                        }
-                        return notifMap;
-                    });
-
-            long unreadCount = notificationService.getUnreadCount(userDetails.getUsername());
+                    .map(this::toNotificationMap);
+
+            long unreadCount = notificationService.getUnreadCount(userDetails);
 
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("status", "success");
@@ -130,7 +168,7 @@ public class NotificationController {
     @Operation(summary = "Obtener conteo de notificaciones no leídas")
     public ResponseEntity<?> getUnreadCount(@AuthenticationPrincipal UserDetails userDetails) {
         try {
-            long unreadCount = notificationService.getUnreadCount(userDetails.getUsername());
+            long unreadCount = notificationService.getUnreadCount(userDetails);
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
@@ -146,4 +184,42 @@ public class NotificationController {
             ));
         }
     }
-}
\ No newline at end of file
+
+    @PostMapping("/retention/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Archivar ahora las notificaciones leídas antiguas")
+    public ResponseEntity<?> runRetention() {
+        try {
+            NotificationRetentionService.RetentionReport report = notificationRetentionService.compact();
+
+            return ResponseEntity.ok(Map.of(
+                    "status", "success",
+                    "rowsMoved", report.rowsMoved(),
+                    "tookMs", report.tookMs(),
+                    "cutoff", report.cutoff(),
+                    "timestamp", LocalDateTime.now()
+            ));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage(),
+                    "timestamp", LocalDateTime.now()
+            ));
+        }
+    }
+
+    private Map<String, Object> toNotificationMap(Notification notification) {
+        Map<String, Object> notifMap = new LinkedHashMap<>();
+        notifMap.put("id", notification.getId());
+        notifMap.put("title", notification.getTitle());
+        notifMap.put("message", notification.getMessage());
+        notifMap.put("type", notification.getType());
+        notifMap.put("isRead", notification.isRead());
+        notifMap.put("createdAt", notification.getCreatedAt());
+        if (notification.getOrder() != null) {
+            notifMap.put("orderNumber", notification.getOrder().getOrderNumber());
+        }
+        return notifMap;
+    }
+}
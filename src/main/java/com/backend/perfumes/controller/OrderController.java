@@ -1,7 +1,10 @@
 package com.backend.perfumes.controller;
 
 import com.backend.perfumes.dto.CheckoutRequestDTO;
+import com.backend.perfumes.dto.CursorPage;
 import com.backend.perfumes.dto.OrderResponseDTO;
+import com.backend.perfumes.exceptions.BusinessException;
+import com.backend.perfumes.services.IdempotencyService;
 import com.backend.perfumes.services.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -29,18 +32,32 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/checkout")
     @PreAuthorize("isAuthenticated()")
     @Operation(summary = "Crear orden y proceso de pago")
     public ResponseEntity<?> checkout(
             @Valid @RequestBody CheckoutRequestDTO checkoutRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         log.info("Solicitud de checkout recibida de usuario: {}", userDetails.getUsername());
 
         try {
-            OrderResponseDTO orderResponse = orderService.createOrder(checkoutRequest, userDetails.getUsername());
+            String username = userDetails.getUsername();
+            OrderResponseDTO orderResponse;
+            boolean replayed = false;
+
+            if (idempotencyKey != null) {
+                String requestHash = idempotencyService.hash(checkoutRequest);
+                IdempotencyService.Result result = idempotencyService.execute(username, idempotencyKey, requestHash,
+                        () -> orderService.createOrder(checkoutRequest, username, idempotencyKey, requestHash));
+                orderResponse = result.response();
+                replayed = result.replayed();
+            } else {
+                orderResponse = orderService.createOrder(checkoutRequest, username);
+            }
 
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("status", "success");
@@ -48,11 +65,19 @@ public class OrderController {
             response.put("data", orderResponse);
             response.put("timestamp", LocalDateTime.now());
 
-            log.info("Checkout completado para usuario: {}. Orden: {}",
-                    userDetails.getUsername(), orderResponse.getOrderNumber());
+            log.info("Checkout {} para usuario: {}. Orden: {}", replayed ? "repetido" : "completado",
+                    username, orderResponse.getOrderNumber());
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(replayed))
+                    .body(response);
 
+        } catch (BusinessException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage(),
+                    "timestamp", LocalDateTime.now()
+            ));
         } catch (Exception e) {
             log.error("Error en checkout para usuario: {}", userDetails.getUsername(), e);
 
@@ -101,9 +126,23 @@ public class OrderController {
     public ResponseEntity<?> getMyOrders(
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         try {
+            if (cursor != null) {
+                CursorPage<OrderResponseDTO> orders = orderService.getUserOrdersKeyset(
+                        userDetails.getUsername(), cursor, size, includeTotal);
+
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("status", "success");
+                response.put("data", orders.getContent());
+                response.put("meta", orders.meta());
+                response.put("timestamp", LocalDateTime.now());
+                return ResponseEntity.ok(response);
+            }
+
             Pageable pageable = PageRequest.of(page, size);
             Page<OrderResponseDTO> orders = orderService.getUserOrders(userDetails.getUsername(), pageable);
 
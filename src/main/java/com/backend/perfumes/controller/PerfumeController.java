@@ -1,7 +1,7 @@
 package com.backend.perfumes.controller;
 
+import com.backend.perfumes.dto.CursorPage;
 import com.backend.perfumes.dto.PerfumeDTO;
-import com.backend.perfumes.model.Genre;
 import com.backend.perfumes.model.ModerationStatus;
 import com.backend.perfumes.model.Perfume;
 import com.backend.perfumes.services.PerfumeService;
@@ -44,15 +44,32 @@ public class PerfumeController {
     @GetMapping
     public ResponseEntity<?> listarPerfumes(
             Pageable pageable,
-            @RequestParam(value = "filtro", required = false) String filtro) {
+            @RequestParam(value = "filtro", required = false) String filtro,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal) {
+
+        if (cursor != null) {
+            try {
+                CursorPage<PerfumeDTO> pagina = perfumeService.listarPerfumeKeyset(
+                        cursor, pageable.getPageSize(), filtro, includeTotal);
+                return ResponseEntity.ok(Map.of(
+                        "status", "success",
+                        "data", pagina.getContent(),
+                        "meta", pagina.meta()
+                ));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "status", "error",
+                        "message", e.getMessage()
+                ));
+            }
+        }
 
-        Page<Perfume> perfumes = perfumeService.listarPerfume(pageable, filtro);
+        Page<PerfumeDTO> perfumes = perfumeService.buscarCatalogo(pageable, filtro);
 
         return ResponseEntity.ok(Map.of(
                 "status", "success",
-                "data", perfumes.getContent().stream()
-                        .map(this::convertToDto)
-                        .collect(Collectors.toList()),
+                "data", perfumes.getContent(),
                 "meta", Map.of(
                         "total", perfumes.getTotalElements(),
                         "page", perfumes.getNumber(),
@@ -66,10 +83,10 @@ public class PerfumeController {
     @GetMapping("/public/{id}")
     public ResponseEntity<?> obtenerPerfumePublico(@PathVariable Long id) {
         try {
-            Perfume perfume = perfumeService.obtenerPerfumePublico(id);
+            PerfumeDTO perfume = perfumeService.obtenerPerfumePublicoDto(id);
             return ResponseEntity.ok(Map.of(
                     "status", "success",
-                    "data", convertToDto(perfume)
+                    "data", perfume
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -280,33 +297,7 @@ public class PerfumeController {
 
 
     private PerfumeDTO convertToDto(Perfume perfume) {
-        PerfumeDTO dto = new PerfumeDTO();
-        dto.setId(perfume.getId());
-        dto.setName(perfume.getName());
-        dto.setDescription(perfume.getDescription());
-        dto.setPrice(perfume.getPrice());
-        dto.setStock(perfume.getStock());
-        dto.setSizeMl(perfume.getSizeMl());
-        dto.setGenre(Genre.valueOf(perfume.getGenre().name()));
-        dto.setReleaseDate(perfume.getReleaseDate());
-        dto.setBrandId(perfume.getBrand().getId());
-        dto.setCategoryId(perfume.getCategory().getId());
-        dto.setImageUrl(perfume.getImageUrl());
-        dto.setModerationStatus(perfume.getModerationStatus());
-        dto.setRejectionReason(perfume.getRejectionReason());
-
-        if (perfume.getUser() != null) {
-            dto.setCreador(perfume.getUser().getUsername());
-        }
-
-        if (perfume.getBrand() != null) {
-            dto.setBrandName(perfume.getBrand().getName());
-        }
-        if (perfume.getCategory() != null) {
-            dto.setCategoryName(perfume.getCategory().getName());
-        }
-
-        return dto;
+        return PerfumeDTO.fromEntity(perfume);
     }
 
     @PutMapping("/{id}")
@@ -0,0 +1,60 @@
+package com.backend.perfumes.controller;
+
+import com.backend.perfumes.exceptions.BusinessException;
+import com.backend.perfumes.model.RemoderationJob;
+import com.backend.perfumes.services.CatalogRemoderationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/moderation/remoderation")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Moderation", description = "Diccionario de moderación automática")
+public class RemoderationController {
+
+    private final CatalogRemoderationService catalogRemoderationService;
+
+    @PostMapping
+    @Operation(summary = "Re-moderar todo el catálogo aprobado",
+            description = "Aplica el diccionario vigente a marcas y perfumes aprobados. Si la última ejecución quedó a medias, continúa desde su último avance")
+    public ResponseEntity<?> start(@AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            RemoderationJob job = catalogRemoderationService.start(userDetails.getUsername());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                    "status", "success",
+                    "message", "Re-moderación del catálogo en marcha",
+                    "data", job,
+                    "timestamp", LocalDateTime.now()
+            ));
+
+        } catch (BusinessException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage(),
+                    "timestamp", LocalDateTime.now()
+            ));
+        }
+    }
+
+    @GetMapping
+    @Operation(summary = "Progreso de la última re-moderación", description = "Elementos revisados, cambios aplicados y ritmo en elementos por segundo")
+    public ResponseEntity<?> getProgress() {
+        return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "data", catalogRemoderationService.progress(),
+                "timestamp", LocalDateTime.now()
+        ));
+    }
+}
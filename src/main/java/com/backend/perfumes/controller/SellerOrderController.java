@@ -1,5 +1,6 @@
 package com.backend.perfumes.controller;
 
+import com.backend.perfumes.dto.CursorPage;
 import com.backend.perfumes.model.Order;
 import com.backend.perfumes.model.OrderStatus;
 import com.backend.perfumes.services.OrderService;
@@ -39,9 +40,23 @@ public class SellerOrderController {
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "10") int size,
             @RequestParam(value = "status", required = false) OrderStatus status,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         try {
+            if (cursor != null) {
+                CursorPage<Order> orders = orderService.getSellerOrdersKeyset(
+                        userDetails.getUsername(), cursor, size, status, includeTotal);
+
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("status", "success");
+                response.put("data", orders.getContent());
+                response.put("meta", orders.meta());
+                response.put("timestamp", LocalDateTime.now());
+                return ResponseEntity.ok(response);
+            }
+
             Pageable pageable = PageRequest.of(page, size);
             Page<Order> orders = orderService.getSellerOrders(userDetails.getUsername(), pageable, status);
 
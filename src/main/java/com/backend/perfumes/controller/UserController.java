@@ -1,10 +1,12 @@
 package com.backend.perfumes.controller;
 
+import com.backend.perfumes.model.Role;
 import com.backend.perfumes.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
@@ -76,5 +78,31 @@ public class UserController {
         }
     }
 
+    @Operation(summary = "Cambio de rol", description = "Asigna un nuevo rol al usuario (solo administradores)")
+    @ApiResponse(responseCode = "200", description = "Rol actualizado correctamente")
+    @PutMapping("/{id}/role")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> changeRole(@PathVariable Long id, @RequestParam("role") Role role) {
+        try {
+            String msg = userService.changeRole(id, role);
+            return ResponseEntity.ok(Map.of("message", msg));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Activar o desactivar usuario", description = "Cambia el estado activo del usuario (solo administradores)")
+    @ApiResponse(responseCode = "200", description = "Estado actualizado")
+    @PutMapping("/{id}/active")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> changeActive(@PathVariable Long id, @RequestParam("active") boolean active) {
+        try {
+            String msg = userService.changeActive(id, active);
+            return ResponseEntity.ok(Map.of("message", msg));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
 
 }
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import java.util.List;
+import java.util.Map;
 
 @Data
 public class BrandDTO {
@@ -22,6 +23,7 @@ public class BrandDTO {
     private String countryOrigin;
 
     private String imageUrl;
+    private Map<String, String> imageVariants;
 
     private String creador;
     private List<PerfumeDTO> perfumes;
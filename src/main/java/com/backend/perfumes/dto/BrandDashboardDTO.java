@@ -0,0 +1,14 @@
+package com.backend.perfumes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class BrandDashboardDTO {
+    private Page<BrandDTO> marcas;
+    private Map<String, Long> moderationStats;
+}
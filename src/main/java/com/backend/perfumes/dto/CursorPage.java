@@ -0,0 +1,69 @@
+package com.backend.perfumes.dto;
+
+import com.backend.perfumes.utils.KeysetCursor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+@Data
+public class CursorPage<T> {
+    public static final int MAX_SIZE = 100;
+
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private Long total;
+
+    /**
+     * Tamaño de página efectivo para un {@code size} recibido del cliente: entre 1 y
+     * {@link #MAX_SIZE}. Con 0 no habría última fila visible de la que sacar el cursor.
+     */
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * Construye la página a partir de una consulta que pidió {@code size + 1} filas:
+     * la fila sobrante solo indica que hay página siguiente.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, LocalDateTime> createdAt,
+                                          Function<E, Long> id,
+                                          Function<E, T> mapper) {
+        return of(rows, size, last -> new KeysetCursor(createdAt.apply(last), id.apply(last)).encode(), mapper);
+    }
+
+    /**
+     * Igual que {@link #of(List, int, Function, Function, Function)}, pero el cursor de la
+     * última fila visible lo construye {@code cursorOf}.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, String> cursorOf,
+                                          Function<E, T> mapper) {
+        CursorPage<T> page = new CursorPage<>();
+        boolean hasNext = rows.size() > size;
+        List<E> visible = hasNext ? rows.subList(0, size) : rows;
+
+        page.setContent(visible.stream().map(mapper).toList());
+        page.setHasNext(hasNext);
+        if (hasNext) {
+            E last = visible.get(visible.size() - 1);
+            page.setNextCursor(cursorOf.apply(last));
+        }
+        return page;
+    }
+
+    public Map<String, Object> meta() {
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("size", content.size());
+        meta.put("hasNext", hasNext);
+        meta.put("nextCursor", nextCursor);
+        if (total != null) {
+            meta.put("total", total);
+        }
+        return meta;
+    }
+}
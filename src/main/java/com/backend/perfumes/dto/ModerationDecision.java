@@ -0,0 +1,19 @@
+package com.backend.perfumes.dto;
+
+import com.backend.perfumes.model.ModerationStatus;
+
+/**
+ * Resultado de la moderación automática de una marca o perfume, listo para aplicarse en lote.
+ */
+public record ModerationDecision(Long id, ModerationStatus status, String reason) {
+
+    private static final int MAX_REASON_LENGTH = 255;
+
+    public static ModerationDecision of(Long id, ModerationResult result) {
+        String reason = result.getReason();
+        if (reason != null && reason.length() > MAX_REASON_LENGTH) {
+            reason = reason.substring(0, MAX_REASON_LENGTH);
+        }
+        return new ModerationDecision(id, result.getStatus(), reason);
+    }
+}
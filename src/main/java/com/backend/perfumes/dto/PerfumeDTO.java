@@ -1,10 +1,13 @@
 package com.backend.perfumes.dto;
 
 import com.backend.perfumes.model.Genre;
+import com.backend.perfumes.model.ImageVariant;
 import com.backend.perfumes.model.ModerationStatus;
+import com.backend.perfumes.model.Perfume;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import java.time.LocalDate;
+import java.util.Map;
 
 @Data
 public class PerfumeDTO {
@@ -44,6 +47,7 @@ public class PerfumeDTO {
     private Long categoryId;
 
     private String imageUrl;
+    private Map<String, String> imageVariants;
 
     private String creador;
     private String brandName;
@@ -51,4 +55,34 @@ public class PerfumeDTO {
     private ModerationStatus moderationStatus;
     private String rejectionReason;
     private LocalDate createdAt;
-}
\ No newline at end of file
+
+    public static PerfumeDTO fromEntity(Perfume perfume) {
+        PerfumeDTO dto = new PerfumeDTO();
+        dto.setId(perfume.getId());
+        dto.setName(perfume.getName());
+        dto.setDescription(perfume.getDescription());
+        dto.setPrice(perfume.getPrice());
+        dto.setStock(perfume.getStock());
+        dto.setSizeMl(perfume.getSizeMl());
+        dto.setGenre(perfume.getGenre());
+        dto.setReleaseDate(perfume.getReleaseDate());
+        dto.setImageUrl(perfume.getImageUrl());
+        dto.setImageVariants(ImageVariant.urlsFor(perfume.getImageUrl()));
+        dto.setModerationStatus(perfume.getModerationStatus());
+        dto.setRejectionReason(perfume.getRejectionReason());
+
+        if (perfume.getUser() != null) {
+            dto.setCreador(perfume.getUser().getUsername());
+        }
+        if (perfume.getBrand() != null) {
+            dto.setBrandId(perfume.getBrand().getId());
+            dto.setBrandName(perfume.getBrand().getName());
+        }
+        if (perfume.getCategory() != null) {
+            dto.setCategoryId(perfume.getCategory().getId());
+            dto.setCategoryName(perfume.getCategory().getName());
+        }
+
+        return dto;
+    }
+}
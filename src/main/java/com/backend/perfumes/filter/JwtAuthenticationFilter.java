@@ -1,7 +1,8 @@
 package com.backend.perfumes.filter;
 
 import com.backend.perfumes.services.JwtService;
-import com.backend.perfumes.services.UserDetailService;
+import com.backend.perfumes.services.UserPrincipalCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,11 +20,11 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailService userDetailService;
+    private final UserPrincipalCache userPrincipalCache;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailService userDetailService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserPrincipalCache userPrincipalCache) {
         this.jwtService = jwtService;
-        this.userDetailService = userDetailService;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     @Override
@@ -33,21 +34,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String token;
-        final String username;
+        final Claims claims;
 
         if (StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7);
             try {
-                username = jwtService.extractUsername(token);
+                claims = jwtService.parseVerifiedClaims(token);
             } catch (Exception e) {
                 filterChain.doFilter(request, response);
                 return;
             }
 
+            String username = claims.getSubject();
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailService.loadUserByUsername(username);
+                UserDetails userDetails = userPrincipalCache.load(username);
 
-                if (jwtService.isTokenValid(token, userDetails)) {
+                if (jwtService.isTokenValid(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails,
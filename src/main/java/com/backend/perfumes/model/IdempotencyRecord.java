@@ -0,0 +1,39 @@
+package com.backend.perfumes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_records", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_user_key", columnNames = {"username", "idempotency_key"})
+})
+@Data
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String username;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    // SHA-256 del cuerpo de la solicitud original, para detectar reutilización de la clave
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    private Long orderId;
+
+    @Column(name = "response_body", nullable = false, length = 20000)
+    private String responseBody;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,61 @@
+package com.backend.perfumes.model;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tamaños derivados de las imágenes subidas. {@code maxSize} es el lado mayor en píxeles;
+ * la proporción del original se conserva.
+ */
+public enum ImageVariant {
+    THUMB(200),
+    CARD(480),
+    DETAIL(1080);
+
+    private static final String UPLOADS_PATH = "/uploads/";
+
+    private final int maxSize;
+
+    ImageVariant(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public String param() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Variante pedida en {@code ?size=}; {@code null} si no se pidió o no existe, y entonces
+     * se sirve el original.
+     */
+    public static ImageVariant fromParam(String size) {
+        if (size == null || size.isBlank()) {
+            return null;
+        }
+        for (ImageVariant variant : values()) {
+            if (variant.param().equalsIgnoreCase(size.trim())) {
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * URLs de cada variante de una imagen subida, o {@code null} si la imagen es externa.
+     */
+    public static Map<String, String> urlsFor(String imageUrl) {
+        if (imageUrl == null || !imageUrl.contains(UPLOADS_PATH) || imageUrl.contains("?")) {
+            return null;
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (ImageVariant variant : values()) {
+            urls.put(variant.param(), imageUrl + "?size=" + variant.param());
+        }
+        return urls;
+    }
+}
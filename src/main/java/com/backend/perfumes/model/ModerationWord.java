@@ -0,0 +1,33 @@
+package com.backend.perfumes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "moderation_words", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_moderation_words_word", columnNames = "word")
+})
+@Data
+public class ModerationWord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Siempre en minúsculas: el autómata de moderación no distingue mayúsculas
+    @Column(nullable = false, length = 100)
+    private String word;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ModerationWordCategory category;
+
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
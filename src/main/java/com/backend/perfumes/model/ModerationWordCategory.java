@@ -0,0 +1,6 @@
+package com.backend.perfumes.model;
+
+public enum ModerationWordCategory {
+    BANNED,
+    SUSPICIOUS
+}
@@ -6,7 +6,9 @@ import lombok.Data;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_perfume", columnList = "perfume_id")
+})
 @Data
 public class OrderItem {
     @Id
@@ -0,0 +1,44 @@
+package com.backend.perfumes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_status_id", columnList = "status, id")
+})
+@Data
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private OutboxEventType type;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    // Estado de la orden al momento del evento; el despacho puede ocurrir más tarde
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
+
+    private String recipientUsername;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    private int attempts = 0;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
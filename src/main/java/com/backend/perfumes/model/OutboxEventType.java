@@ -0,0 +1,6 @@
+package com.backend.perfumes.model;
+
+public enum OutboxEventType {
+    ORDER_PAID,            // Pago confirmado: avisar al vendedor y al cliente
+    ORDER_STATUS_CHANGED   // Cambio de estado: avisar al cliente
+}
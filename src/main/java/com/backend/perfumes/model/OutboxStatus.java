@@ -0,0 +1,7 @@
+package com.backend.perfumes.model;
+
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
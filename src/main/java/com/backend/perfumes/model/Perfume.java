@@ -1,5 +1,6 @@
 package com.backend.perfumes.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
@@ -8,7 +9,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "perfumes")
+@Table(name = "perfumes", indexes = {
+        @Index(name = "idx_perfumes_status_created", columnList = "moderation_status, created_at, id")
+})
 @Data
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Perfume {
@@ -54,6 +57,10 @@ public class Perfume {
     private int reportCount = 0;
     private int salesCount = 0;
 
+    @JsonIgnore
+    @Column(name = "search_document", length = 2000)
+    private String searchDocument;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "brand_id")
     private Brand brand;
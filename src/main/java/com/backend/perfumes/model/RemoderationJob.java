@@ -0,0 +1,51 @@
+package com.backend.perfumes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ejecución de la re-moderación del catálogo. Guarda el último id confirmado de marcas y
+ * perfumes, de modo que tras una caída el trabajo sigue desde ahí y no desde el principio.
+ */
+@Entity
+@Table(name = "remoderation_jobs")
+@Data
+public class RemoderationJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RemoderationJobStatus status;
+
+    private String startedBy;
+
+    private boolean brandsCompleted;
+    private long lastBrandId;
+    private long lastPerfumeId;
+
+    private long brandsScanned;
+    private long perfumesScanned;
+    private long rejected;
+    private long sentToReview;
+
+    private String errorMessage;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        startedAt = LocalDateTime.now();
+        updatedAt = startedAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,41 @@
+package com.backend.perfumes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Contenido subido guardado una sola vez en {@code uploads/<sha-256>.<ext>}. Cada subida del
+ * mismo contenido suma una referencia y cada borrado la resta; el fichero se elimina al
+ * quedarse sin referencias.
+ */
+@Entity
+@Table(name = "stored_blobs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stored_blobs_digest", columnNames = "digest"),
+        @UniqueConstraint(name = "uk_stored_blobs_file_name", columnNames = "fileName")
+})
+@Data
+public class StoredBlob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 en hexadecimal
+    @Column(nullable = false, length = 64)
+    private String digest;
+
+    @Column(nullable = false, length = 80)
+    private String fileName;
+
+    private long size;
+
+    private int referenceCount;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -3,16 +3,22 @@ package com.backend.perfumes.repositories;
 import com.backend.perfumes.model.Brand;
 import com.backend.perfumes.model.ModerationStatus;
 import com.backend.perfumes.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BrandRepository extends JpaRepository<Brand, Long> {
+public interface BrandRepository extends JpaRepository<Brand, Long>, BrandRepositoryCustom {
 
     List<Brand> findByUser(User user);
     List<Brand> findByModerationStatus(ModerationStatus status);
@@ -26,6 +32,26 @@ public interface BrandRepository extends JpaRepository<Brand, Long> {
             "LOWER(b.description) LIKE LOWER(CONCAT('%', :filtro, '%')))")
     List<Brand> findByUserAndFiltro(@Param("user") User user, @Param("filtro") String filtro);
 
+    @Query("SELECT b FROM Brand b WHERE b.user = :user AND " +
+            "(:status IS NULL OR b.moderationStatus = :status) AND " +
+            "(:filtro IS NULL OR " +
+            "LOWER(b.name) LIKE LOWER(CONCAT('%', :filtro, '%')) OR " +
+            "LOWER(b.description) LIKE LOWER(CONCAT('%', :filtro, '%')))")
+    Page<Brand> findByUserAndFiltroAndStatus(@Param("user") User user,
+                                            @Param("filtro") String filtro,
+                                            @Param("status") ModerationStatus status,
+                                            Pageable pageable);
+
+    @Query("SELECT b.moderationStatus, COUNT(b) FROM Brand b WHERE b.user = :user AND " +
+            "(:status IS NULL OR b.moderationStatus = :status) AND " +
+            "(:filtro IS NULL OR " +
+            "LOWER(b.name) LIKE LOWER(CONCAT('%', :filtro, '%')) OR " +
+            "LOWER(b.description) LIKE LOWER(CONCAT('%', :filtro, '%'))) " +
+            "GROUP BY b.moderationStatus")
+    List<Object[]> countByUserAndFiltroAndStatusGroupByStatus(@Param("user") User user,
+                                                              @Param("filtro") String filtro,
+                                                              @Param("status") ModerationStatus status);
+
     @Query("SELECT b FROM Brand b WHERE b.moderationStatus = :status AND " +
             "(:filtro IS NULL OR " +
             "LOWER(b.name) LIKE LOWER(CONCAT('%', :filtro, '%')) OR " +
@@ -33,4 +59,16 @@ public interface BrandRepository extends JpaRepository<Brand, Long> {
     List<Brand> findByModerationStatusAndFiltro(@Param("status") ModerationStatus status, @Param("filtro") String filtro);
 
     boolean existsByName(String name);
-}
\ No newline at end of file
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Brand> findForModerationByIdIn(Collection<Long> ids);
+
+    @Query("SELECT b.id FROM Brand b WHERE b.moderationStatus = :status AND b.moderatedBy IS NULL ORDER BY b.id")
+    List<Long> findIdsAwaitingModeration(@Param("status") ModerationStatus status);
+
+    // Recorrido por id para la re-moderación del catálogo: cada trozo empieza donde acabó el anterior
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Brand> findForRemoderationByModerationStatusAndIdGreaterThanOrderByIdAsc(ModerationStatus status, Long id, Pageable limit);
+
+    long countByModerationStatusAndIdGreaterThan(ModerationStatus status, Long id);
+}
@@ -0,0 +1,20 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.dto.ModerationDecision;
+
+import java.util.List;
+
+public interface BrandRepositoryCustom {
+
+    /**
+     * Aplica en un lote JDBC las decisiones de la moderación automática, solo a las marcas
+     * que siguen en cola (pendientes y sin moderador). Devuelve los ids actualizados.
+     */
+    List<Long> applyModerationBatch(List<ModerationDecision> decisions, String moderatedBy);
+
+    /**
+     * Aplica decisiones de la re-moderación del catálogo solo a filas que siguen aprobadas.
+     * Devuelve los ids actualizados.
+     */
+    List<Long> applyRemoderationBatch(List<ModerationDecision> decisions, String moderatedBy);
+}
@@ -0,0 +1,61 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.dto.ModerationDecision;
+import com.backend.perfumes.model.ModerationStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BrandRepositoryCustomImpl implements BrandRepositoryCustom {
+
+    private static final String MODERATION_SQL =
+            "UPDATE brands SET moderation_status = ?, rejection_reason = ?, moderation_date = ?, moderated_by = ? " +
+            "WHERE id = ? AND moderation_status = '" + ModerationStatus.PENDING_REVIEW.name() + "' AND moderated_by IS NULL";
+
+    private static final String REMODERATION_SQL =
+            "UPDATE brands SET moderation_status = ?, rejection_reason = ?, moderation_date = ?, moderated_by = ? " +
+            "WHERE id = ? AND moderation_status = '" + ModerationStatus.APPROVED.name() + "'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BrandRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> applyModerationBatch(List<ModerationDecision> decisions, String moderatedBy) {
+        return applyDecisions(MODERATION_SQL, decisions, moderatedBy);
+    }
+
+    @Override
+    public List<Long> applyRemoderationBatch(List<ModerationDecision> decisions, String moderatedBy) {
+        return applyDecisions(REMODERATION_SQL, decisions, moderatedBy);
+    }
+
+    private List<Long> applyDecisions(String sql, List<ModerationDecision> decisions, String moderatedBy) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[][] counts = jdbcTemplate.batchUpdate(sql, decisions, decisions.size(), (ps, decision) -> {
+            ps.setString(1, decision.status().name());
+            ps.setString(2, decision.reason());
+            ps.setTimestamp(3, now);
+            ps.setString(4, moderatedBy);
+            ps.setLong(5, decision.id());
+        });
+
+        List<Long> applied = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    applied.add(decisions.get(i).id());
+                }
+                i++;
+            }
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,24 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.model.ModerationWord;
+import com.backend.perfumes.model.ModerationWordCategory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ModerationWordRepository extends JpaRepository<ModerationWord, Long> {
+
+    Optional<ModerationWord> findByWord(String word);
+
+    List<ModerationWord> findByCategoryOrderByWordAsc(ModerationWordCategory category);
+
+    List<ModerationWord> findAllByOrderByWordAsc();
+
+    @Query("SELECT MAX(w.updatedAt) FROM ModerationWord w")
+    LocalDateTime findLastUpdate();
+}
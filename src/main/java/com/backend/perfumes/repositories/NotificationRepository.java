@@ -11,22 +11,38 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface NotificationRepository extends JpaRepository<Notification, Long> {
+public interface NotificationRepository extends JpaRepository<Notification, Long>, NotificationRepositoryCustom {
 
     Page<Notification> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
 
+    @Query("SELECT n FROM Notification n WHERE n.user = :user ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findKeysetFirstPage(@Param("user") User user, Pageable limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user = :user AND " +
+            "(n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findKeysetPageAfter(@Param("user") User user,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Pageable limit);
+
+    long countByUser(User user);
+
+    long countByUserIdAndIsReadFalse(Long userId);
+
     List<Notification> findByUserAndIsReadFalseOrderByCreatedAtDesc(User user);
 
     long countByUserAndIsReadFalse(User user);
 
     @Modifying
     @Query("UPDATE Notification n SET n.isRead = true WHERE n.user = :user AND n.isRead = false")
-    void markAllAsReadByUser(@Param("user") User user);
+    int markAllAsReadByUser(@Param("user") User user);
 
     @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.user = :user")
-    void markAsRead(@Param("id") Long id, @Param("user") User user);
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.user = :user AND n.isRead = false")
+    int markAsRead(@Param("id") Long id, @Param("user") User user);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.model.Notification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+public interface NotificationRepositoryCustom {
+
+    /**
+     * Inserta la misma notificación (título, mensaje, tipo y orden de la plantilla) para
+     * cada usuario indicado, en un solo lote JDBC.
+     */
+    void insertForUsers(Collection<Long> userIds, Notification template);
+
+    /**
+     * Mueve a {@code notifications_archive} hasta {@code limit} notificaciones leídas creadas
+     * antes de {@code cutoff}, borrándolas de la tabla principal en la misma sentencia.
+     * Devuelve las filas movidas. Solo PostgreSQL.
+     */
+    int moveReadToArchive(LocalDateTime cutoff, int limit);
+
+    LocalDateTime findOldestReadBefore(LocalDateTime cutoff);
+
+    Page<Map<String, Object>> findArchivedByUser(Long userId, Pageable pageable);
+}
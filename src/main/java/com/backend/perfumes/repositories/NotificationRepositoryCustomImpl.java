@@ -0,0 +1,105 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.model.Notification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class NotificationRepositoryCustomImpl implements NotificationRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, title, message, type, is_read, order_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // FOR UPDATE SKIP LOCKED deja pasar a quien esté marcando notificaciones mientras se archiva
+    private static final String MOVE_TO_ARCHIVE_SQL =
+            "WITH moved AS (" +
+            "  DELETE FROM notifications WHERE id IN (" +
+            "    SELECT id FROM notifications WHERE is_read = true AND created_at < ? " +
+            "    ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "  RETURNING id, user_id, title, message, type, order_id, created_at) " +
+            "INSERT INTO notifications_archive (id, user_id, title, message, type, order_id, created_at, archived_at) " +
+            "SELECT id, user_id, title, message, type, order_id, created_at, ? FROM moved";
+
+    private static final String OLDEST_READ_SQL =
+            "SELECT min(created_at) FROM notifications WHERE is_read = true AND created_at < ?";
+
+    private static final String ARCHIVE_PAGE_SQL =
+            "SELECT a.id, a.title, a.message, a.type, a.created_at, o.order_number " +
+            "FROM notifications_archive a LEFT JOIN orders o ON o.id = a.order_id " +
+            "WHERE a.user_id = ? ORDER BY a.created_at DESC, a.id DESC LIMIT ? OFFSET ?";
+
+    private static final String ARCHIVE_COUNT_SQL =
+            "SELECT count(*) FROM notifications_archive WHERE user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertForUsers(Collection<Long> userIds, Notification template) {
+        List<Long> ids = new ArrayList<>(userIds);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Long orderId = template.getOrder() != null ? template.getOrder().getId() : null;
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, ids, ids.size(), (ps, userId) -> {
+            ps.setLong(1, userId);
+            ps.setString(2, template.getTitle());
+            ps.setString(3, template.getMessage());
+            ps.setString(4, template.getType().name());
+            ps.setBoolean(5, false);
+            if (orderId != null) {
+                ps.setLong(6, orderId);
+            } else {
+                ps.setNull(6, Types.BIGINT);
+            }
+            ps.setTimestamp(7, now);
+        });
+    }
+
+    @Override
+    public int moveReadToArchive(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(MOVE_TO_ARCHIVE_SQL,
+                Timestamp.valueOf(cutoff), limit, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Override
+    public LocalDateTime findOldestReadBefore(LocalDateTime cutoff) {
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_READ_SQL, Timestamp.class, Timestamp.valueOf(cutoff));
+        return oldest != null ? oldest.toLocalDateTime() : null;
+    }
+
+    @Override
+    public Page<Map<String, Object>> findArchivedByUser(Long userId, Pageable pageable) {
+        List<Map<String, Object>> rows = jdbcTemplate.query(ARCHIVE_PAGE_SQL, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", rs.getLong("id"));
+            row.put("title", rs.getString("title"));
+            row.put("message", rs.getString("message"));
+            row.put("type", rs.getString("type"));
+            row.put("isRead", true);
+            row.put("archived", true);
+            row.put("createdAt", rs.getTimestamp("created_at").toLocalDateTime());
+            String orderNumber = rs.getString("order_number");
+            if (orderNumber != null) {
+                row.put("orderNumber", orderNumber);
+            }
+            return row;
+        }, userId, pageable.getPageSize(), pageable.getOffset());
+
+        Long total = jdbcTemplate.queryForObject(ARCHIVE_COUNT_SQL, Long.class, userId);
+        return new PageImpl<>(rows, pageable, total != null ? total : 0);
+    }
+}
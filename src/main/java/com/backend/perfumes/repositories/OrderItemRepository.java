@@ -3,14 +3,19 @@ package com.backend.perfumes.repositories;
 import com.backend.perfumes.model.Order;
 import com.backend.perfumes.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, OrderItemRepositoryCustom {
 
     List<OrderItem> findByOrder(Order order);
 
     List<OrderItem> findByOrderOrderById(Order order);
+
+    @Query("SELECT DISTINCT u.id FROM OrderItem i JOIN i.perfume p JOIN p.user u WHERE i.order.id = :orderId")
+    List<Long> findDistinctSellerIdsByOrderId(@Param("orderId") Long orderId);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.model.OrderItem;
+
+import java.util.List;
+
+public interface OrderItemRepositoryCustom {
+
+    /**
+     * Inserta las líneas de una orden en un solo lote JDBC. Los ids IDENTITY impiden
+     * que Hibernate agrupe los INSERT, por eso se escriben directamente.
+     */
+    void insertBatch(List<OrderItem> items);
+}
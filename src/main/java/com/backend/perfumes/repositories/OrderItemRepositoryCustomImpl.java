@@ -0,0 +1,30 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.model.OrderItem;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class OrderItemRepositoryCustomImpl implements OrderItemRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_items (order_id, perfume_id, quantity, unit_price, total_price) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderItemRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertBatch(List<OrderItem> items) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, items, items.size(), (ps, item) -> {
+            ps.setLong(1, item.getOrder().getId());
+            ps.setLong(2, item.getPerfume().getId());
+            ps.setInt(3, item.getQuantity());
+            ps.setBigDecimal(4, item.getUnitPrice());
+            ps.setBigDecimal(5, item.getTotalPrice());
+        });
+    }
+}
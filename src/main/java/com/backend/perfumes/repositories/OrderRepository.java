@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +34,41 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.user.username = :username ORDER BY o.createdAt DESC")
     Page<Order> findByUsername(@Param("username") String username, Pageable pageable);
 
+    @Query("SELECT COUNT(o) FROM Order o WHERE o.user.username = :username")
+    long countByUsername(@Param("username") String username);
+
+    @Query("SELECT o FROM Order o WHERE o.user.username = :username ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findKeysetFirstPageByUsername(@Param("username") String username, Pageable limit);
+
+    @Query("SELECT o FROM Order o WHERE o.user.username = :username AND " +
+            "(o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findKeysetPageAfterByUsername(@Param("username") String username,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id,
+                                              Pageable limit);
+
+    @Query("SELECT DISTINCT o FROM Order o JOIN o.items i WHERE i.perfume.user.id = :sellerId AND " +
+            "(:status IS NULL OR o.status = :status) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findKeysetFirstPageBySeller(@Param("sellerId") Long sellerId,
+                                            @Param("status") OrderStatus status,
+                                            Pageable limit);
+
+    @Query("SELECT DISTINCT o FROM Order o JOIN o.items i WHERE i.perfume.user.id = :sellerId AND " +
+            "(:status IS NULL OR o.status = :status) AND " +
+            "(o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findKeysetPageAfterBySeller(@Param("sellerId") Long sellerId,
+                                            @Param("status") OrderStatus status,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable limit);
+
+    @Query("SELECT COUNT(DISTINCT o) FROM Order o JOIN o.items i WHERE i.perfume.user.id = :sellerId AND " +
+            "(:status IS NULL OR o.status = :status)")
+    long countBySeller(@Param("sellerId") Long sellerId, @Param("status") OrderStatus status);
+
     @Query("SELECT DISTINCT o FROM Order o JOIN o.items i WHERE i.perfume.user.id = :sellerId")
     Page<Order> findBySeller(@Param("sellerId") Long sellerId, Pageable pageable);
 
@@ -0,0 +1,39 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.model.OutboxEvent;
+import com.backend.perfumes.model.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = :status AND e.id > :afterId ORDER BY e.id")
+    List<Long> findIdsByStatusAfter(@Param("status") OutboxStatus status, @Param("afterId") Long afterId,
+                                    Pageable limit);
+
+    /**
+     * Bloquea un evento si sigue en {@code status}, con FOR UPDATE SKIP LOCKED (timeout -2):
+     * si otra instancia lo está despachando, no devuelve nada en lugar de esperar.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id = :id AND e.status = :status")
+    Optional<OutboxEvent> lockIfStatus(@Param("id") Long id, @Param("status") OutboxStatus status);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("status") OutboxStatus status, @Param("before") LocalDateTime before);
+}
@@ -3,19 +3,27 @@ package com.backend.perfumes.repositories;
 import com.backend.perfumes.model.ModerationStatus;
 import com.backend.perfumes.model.Perfume;
 import com.backend.perfumes.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PerfumeRepository extends JpaRepository<Perfume, Long> {
+public interface PerfumeRepository extends JpaRepository<Perfume, Long>, PerfumeRepositoryCustom {
 
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
     @Query("SELECT p FROM Perfume p WHERE " +
             "(:filtro IS NULL OR " +
             "CAST(p.name AS string) LIKE CONCAT('%', CAST(:filtro AS string), '%') OR " +
@@ -23,6 +31,7 @@ public interface PerfumeRepository extends JpaRepository<Perfume, Long> {
             "CAST(p.brand.name AS string) LIKE CONCAT('%', CAST(:filtro AS string), '%'))")
     Page<Perfume> findByFiltro(@Param("filtro") String filtro, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
     @Query("SELECT p FROM Perfume p WHERE p.moderationStatus = :status AND " +
             "(:filtro IS NULL OR " +
             "CAST(p.name AS string) LIKE CONCAT('%', CAST(:filtro AS string), '%') OR " +
@@ -31,6 +40,91 @@ public interface PerfumeRepository extends JpaRepository<Perfume, Long> {
     Page<Perfume> findByModerationStatusAndFiltro(@Param("status") ModerationStatus status,
                                                   @Param("filtro") String filtro, Pageable pageable);
 
+    @Query("SELECT COUNT(p) FROM Perfume p WHERE p.moderationStatus = :status AND " +
+            "(:filtro IS NULL OR " +
+            "CAST(p.name AS string) LIKE CONCAT('%', CAST(:filtro AS string), '%') OR " +
+            "CAST(p.description AS string) LIKE CONCAT('%', CAST(:filtro AS string), '%') OR " +
+            "CAST(p.brand.name AS string) LIKE CONCAT('%', CAST(:filtro AS string), '%'))")
+    long countByModerationStatusAndFiltro(@Param("status") ModerationStatus status,
+                                          @Param("filtro") String filtro);
+
+    /**
+     * Devuelve solo los ids en orden de relevancia; las entidades se cargan después
+     * con {@link #findByIdIn} para traer marca, categoría y usuario en la misma consulta.
+     */
+    @Query(value = "SELECT p.id FROM perfumes p " +
+            "WHERE p.moderation_status = :status " +
+            "AND to_tsvector('spanish', coalesce(p.search_document, '')) @@ to_tsquery('spanish', :tsQuery) " +
+            "ORDER BY ts_rank(to_tsvector('spanish', coalesce(p.search_document, '')), to_tsquery('spanish', :tsQuery)) DESC, p.id DESC",
+            countQuery = "SELECT count(*) FROM perfumes p " +
+                    "WHERE p.moderation_status = :status " +
+                    "AND to_tsvector('spanish', coalesce(p.search_document, '')) @@ to_tsquery('spanish', :tsQuery)",
+            nativeQuery = true)
+    Page<Long> searchFullText(@Param("status") String status,
+                                 @Param("tsQuery") String tsQuery,
+                                 Pageable pageable);
+
+    @Query(value = "SELECT count(*) FROM perfumes p " +
+            "WHERE p.moderation_status = :status " +
+            "AND to_tsvector('spanish', coalesce(p.search_document, '')) @@ to_tsquery('spanish', :tsQuery)",
+            nativeQuery = true)
+    long countFullText(@Param("status") String status, @Param("tsQuery") String tsQuery);
+
+    /**
+     * Primera página por keyset de la búsqueda de texto completo: filas {@code [id, rank]}
+     * en el mismo orden que {@link #searchFullText}.
+     */
+    @Query(value = "SELECT p.id, ts_rank(to_tsvector('spanish', coalesce(p.search_document, '')), to_tsquery('spanish', :tsQuery)) AS rank " +
+            "FROM perfumes p " +
+            "WHERE p.moderation_status = :status " +
+            "AND to_tsvector('spanish', coalesce(p.search_document, '')) @@ to_tsquery('spanish', :tsQuery) " +
+            "ORDER BY rank DESC, p.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> searchFullTextKeysetFirstPage(@Param("status") String status,
+                                                 @Param("tsQuery") String tsQuery,
+                                                 @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM (" +
+            "SELECT p.id, ts_rank(to_tsvector('spanish', coalesce(p.search_document, '')), to_tsquery('spanish', :tsQuery)) AS rank " +
+            "FROM perfumes p " +
+            "WHERE p.moderation_status = :status " +
+            "AND to_tsvector('spanish', coalesce(p.search_document, '')) @@ to_tsquery('spanish', :tsQuery)) r " +
+            "WHERE r.rank < :rank OR (r.rank = :rank AND r.id < :id) " +
+            "ORDER BY r.rank DESC, r.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> searchFullTextKeysetPageAfter(@Param("status") String status,
+                                                 @Param("tsQuery") String tsQuery,
+                                                 @Param("rank") double rank,
+                                                 @Param("id") Long id,
+                                                 @Param("limit") int limit);
+
+    @EntityGraph(attributePaths = {"brand", "category"})
+    Slice<Perfume> findBySearchDocumentIsNull(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
+    @Query("SELECT p FROM Perfume p WHERE p.moderationStatus = :status " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Perfume> findKeysetFirstPage(@Param("status") ModerationStatus status, Pageable limit);
+
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
+    @Query("SELECT p FROM Perfume p WHERE p.moderationStatus = :status AND " +
+            "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Perfume> findKeysetPageAfter(@Param("status") ModerationStatus status,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Pageable limit);
+
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
+    List<Perfume> findByModerationStatusAndIdGreaterThanOrderByIdAsc(ModerationStatus status, Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
+    List<Perfume> findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(LocalDateTime since, Long id, Pageable pageable);
+
+    @Query("SELECT p.id FROM Perfume p WHERE p.moderationStatus = :status")
+    List<Long> findIdsByModerationStatus(@Param("status") ModerationStatus status);
+
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
     @Query("SELECT p FROM Perfume p WHERE p.user = :user AND " +
             "(:filtro IS NULL OR " +
             "CAST(p.name AS string) LIKE CONCAT('%', CAST(:filtro AS string), '%') OR " +
@@ -40,6 +134,7 @@ public interface PerfumeRepository extends JpaRepository<Perfume, Long> {
                                       @Param("filtro") String filtro,
                                       Pageable pageable);
 
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
     @Query("SELECT p FROM Perfume p WHERE p.brand.id = :brandId AND p.user = :user AND " +
             "(:filtro IS NULL OR " +
             "CAST(p.name AS string) LIKE CONCAT('%', CAST(:filtro AS string), '%') OR " +
@@ -48,13 +143,41 @@ public interface PerfumeRepository extends JpaRepository<Perfume, Long> {
                                                @Param("user") User user,
                                                @Param("filtro") String filtro);
 
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
     List<Perfume> findByBrandIdAndUser(Long brandId, User user);
+
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
+    List<Perfume> findByBrandIdInAndUser(Collection<Long> brandIds, User user);
+
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
     List<Perfume> findByBrandIdAndModerationStatus(Long brandId, ModerationStatus status);
 
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
     Optional<Perfume> findByIdAndModerationStatus(Long id, ModerationStatus status);
+
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
     List<Perfume> findByModerationStatus(ModerationStatus status);
+
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
     Page<Perfume> findByModerationStatus(ModerationStatus status, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
+    List<Perfume> findByIdIn(Collection<Long> ids);
+
     long countByUser(User user);
     long countByUserAndModerationStatus(User user, ModerationStatus status);
-}
\ No newline at end of file
+
+    // Solo lectura: la moderación en lote escribe por JDBC y no debe volcar estas entidades
+    @EntityGraph(attributePaths = {"brand", "category", "user"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Perfume> findForModerationByIdIn(Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Perfume p WHERE p.moderationStatus = :status AND p.moderatedBy IS NULL ORDER BY p.id")
+    List<Long> findIdsAwaitingModeration(@Param("status") ModerationStatus status);
+
+    // Recorrido por id para la re-moderación del catálogo: cada trozo empieza donde acabó el anterior
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Perfume> findForRemoderationByModerationStatusAndIdGreaterThanOrderByIdAsc(ModerationStatus status, Long id, Pageable limit);
+
+    long countByModerationStatusAndIdGreaterThan(ModerationStatus status, Long id);
+}
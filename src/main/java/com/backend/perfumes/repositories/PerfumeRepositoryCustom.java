@@ -0,0 +1,37 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.dto.ModerationDecision;
+
+import java.util.List;
+import java.util.Map;
+
+public interface PerfumeRepositoryCustom {
+
+    /**
+     * Descuenta stock de varios perfumes en un solo lote JDBC con UPDATE condicionales
+     * (stock >= cantidad). Devuelve los ids que no tenían stock suficiente.
+     */
+    List<Long> decrementStockBatch(Map<Long, Integer> quantities);
+
+    void incrementStockBatch(Map<Long, Integer> quantities);
+
+    /**
+     * Aplica en un lote JDBC las decisiones de la moderación automática, solo a los perfumes
+     * que siguen en cola (pendientes y sin moderador). Devuelve los ids actualizados.
+     */
+    List<Long> applyModerationBatch(List<ModerationDecision> decisions, String moderatedBy);
+
+    /**
+     * Aplica decisiones de la re-moderación del catálogo solo a filas que siguen aprobadas.
+     * Devuelve los ids actualizados.
+     */
+    List<Long> applyRemoderationBatch(List<ModerationDecision> decisions, String moderatedBy);
+
+    /**
+     * Regenera por lotes el documento de búsqueda de los perfumes de una marca, tras
+     * renombrarla. Devuelve cuántos se actualizaron.
+     */
+    int refreshSearchDocumentsByBrand(Long brandId);
+
+    int refreshSearchDocumentsByCategory(Long categoryId);
+}
@@ -0,0 +1,161 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.dto.ModerationDecision;
+import com.backend.perfumes.model.ModerationStatus;
+import com.backend.perfumes.utils.SearchTextNormalizer;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class PerfumeRepositoryCustomImpl implements PerfumeRepositoryCustom {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE perfumes SET stock = stock - ?, updated_at = ? WHERE id = ? AND stock >= ?";
+    private static final String INCREMENT_SQL =
+            "UPDATE perfumes SET stock = stock + ?, updated_at = ? WHERE id = ?";
+
+    // updated_at avanza también aquí: un cambio de estado debe llegar al índice tras un reinicio
+    private static final String MODERATION_SQL =
+            "UPDATE perfumes SET moderation_status = ?, rejection_reason = ?, moderation_date = ?, moderated_by = ?, " +
+            "updated_at = ? " +
+            "WHERE id = ? AND moderation_status = '" + ModerationStatus.PENDING_REVIEW.name() + "' AND moderated_by IS NULL";
+
+    private static final String REMODERATION_SQL =
+            "UPDATE perfumes SET moderation_status = ?, rejection_reason = ?, moderation_date = ?, moderated_by = ?, " +
+            "updated_at = ? " +
+            "WHERE id = ? AND moderation_status = '" + ModerationStatus.APPROVED.name() + "'";
+
+    private static final int SEARCH_DOCUMENT_BATCH_SIZE = 500;
+
+    private static final String SEARCH_DOCUMENT_SOURCE_SQL =
+            "SELECT p.id, p.name, p.description, b.name, c.name, p.genre FROM perfumes p " +
+            "LEFT JOIN brands b ON b.id = p.brand_id " +
+            "LEFT JOIN categories c ON c.id = p.category_id " +
+            "WHERE p.%s = ? AND p.id > ? ORDER BY p.id LIMIT " + SEARCH_DOCUMENT_BATCH_SIZE;
+
+    // updated_at avanza para que el índice en memoria los recoja al sincronizarse tras un reinicio
+    private static final String SEARCH_DOCUMENT_SQL =
+            "UPDATE perfumes SET search_document = ?, updated_at = ? WHERE id = ?";
+
+    private record SearchDocument(long id, String document) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PerfumeRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> decrementStockBatch(Map<Long, Integer> quantities) {
+        // Orden por id: dos lotes concurrentes bloquean las filas en la misma secuencia
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[][] counts = jdbcTemplate.batchUpdate(DECREMENT_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, line.getKey());
+            ps.setInt(4, line.getValue());
+        });
+
+        List<Long> insufficient = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    insufficient.add(lines.get(i).getKey());
+                }
+                i++;
+            }
+        }
+        return insufficient;
+    }
+
+    @Override
+    public void incrementStockBatch(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, line.getKey());
+        });
+    }
+
+    @Override
+    public int refreshSearchDocumentsByBrand(Long brandId) {
+        return refreshSearchDocuments("brand_id", brandId);
+    }
+
+    @Override
+    public int refreshSearchDocumentsByCategory(Long categoryId) {
+        return refreshSearchDocuments("category_id", categoryId);
+    }
+
+    // Por lotes de id creciente: una marca con muchos perfumes no se carga entera en memoria
+    private int refreshSearchDocuments(String column, Long ownerId) {
+        String selectSql = String.format(SEARCH_DOCUMENT_SOURCE_SQL, column);
+        int total = 0;
+        long lastId = 0;
+        List<SearchDocument> batch;
+        do {
+            batch = jdbcTemplate.query(selectSql, (rs, rowNum) -> new SearchDocument(rs.getLong(1),
+                    SearchTextNormalizer.document(rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getString(5), rs.getString(6))), ownerId, lastId);
+            if (batch.isEmpty()) {
+                break;
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(SEARCH_DOCUMENT_SQL, batch, batch.size(), (ps, doc) -> {
+                ps.setString(1, doc.document());
+                ps.setTimestamp(2, now);
+                ps.setLong(3, doc.id());
+            });
+            total += batch.size();
+            lastId = batch.get(batch.size() - 1).id();
+        } while (batch.size() == SEARCH_DOCUMENT_BATCH_SIZE);
+        return total;
+    }
+
+    @Override
+    public List<Long> applyModerationBatch(List<ModerationDecision> decisions, String moderatedBy) {
+        return applyDecisions(MODERATION_SQL, decisions, moderatedBy);
+    }
+
+    @Override
+    public List<Long> applyRemoderationBatch(List<ModerationDecision> decisions, String moderatedBy) {
+        return applyDecisions(REMODERATION_SQL, decisions, moderatedBy);
+    }
+
+    private List<Long> applyDecisions(String sql, List<ModerationDecision> decisions, String moderatedBy) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[][] counts = jdbcTemplate.batchUpdate(sql, decisions, decisions.size(), (ps, decision) -> {
+            ps.setString(1, decision.status().name());
+            ps.setString(2, decision.reason());
+            ps.setTimestamp(3, now);
+            ps.setString(4, moderatedBy);
+            ps.setTimestamp(5, now);
+            ps.setLong(6, decision.id());
+        });
+
+        List<Long> applied = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    applied.add(decisions.get(i).id());
+                }
+                i++;
+            }
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,17 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.model.RemoderationJob;
+import com.backend.perfumes.model.RemoderationJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RemoderationJobRepository extends JpaRepository<RemoderationJob, Long> {
+
+    List<RemoderationJob> findByStatus(RemoderationJobStatus status);
+
+    Optional<RemoderationJob> findTopByOrderByIdDesc();
+}
@@ -0,0 +1,31 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.model.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, Long> {
+
+    Optional<StoredBlob> findByDigest(String digest);
+
+    Optional<StoredBlob> findByFileName(String fileName);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.referenceCount = b.referenceCount + 1 WHERE b.digest = :digest")
+    int incrementReferences(@Param("digest") String digest);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.referenceCount = b.referenceCount - 1 " +
+            "WHERE b.digest = :digest AND b.referenceCount > 0")
+    int decrementReferences(@Param("digest") String digest);
+
+    @Modifying
+    @Query("DELETE FROM StoredBlob b WHERE b.digest = :digest AND b.referenceCount = 0")
+    int deleteUnreferenced(@Param("digest") String digest);
+}
@@ -22,17 +22,20 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final EmailService emailService;
+    private final UserPrincipalCache userPrincipalCache;
 
     public AuthService(UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
                        AuthenticationManager authenticationManager,
                        JwtService jwtService,
-                       EmailService emailService) {
+                       EmailService emailService,
+                       UserPrincipalCache userPrincipalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.emailService = emailService;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     public User authenticate(String email, String password) {
@@ -56,6 +59,7 @@ public class AuthService {
             */
 
             if (!user.isActive()) {
+                userPrincipalCache.invalidate(user);
                 throw new RuntimeException("Tu cuenta está desactivada. Contacta al administrador.");
             }
 
@@ -158,6 +162,7 @@ public class AuthService {
                     .orElseThrow(() -> new RuntimeException("Token inválido o expirado"));
 
             userRepository.delete(user);
+            userPrincipalCache.invalidate(user);
             return "Cuenta eliminada exitosamente";
 
         } catch (Exception e) {
@@ -2,17 +2,20 @@ package com.backend.perfumes.services;
 
 import com.backend.perfumes.dto.ModerationResult;
 import com.backend.perfumes.model.ModerationStatus;
+import com.backend.perfumes.model.ModerationWordCategory;
+import com.backend.perfumes.utils.ContentPatterns;
+import com.backend.perfumes.utils.MultiPatternMatcher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
 public class AutoModerationService {
 
-    private final Set<String> BANNED_WORDS = Set.of(
+    private static final Set<String> BANNED_WORDS = Set.of(
             "porno", "porn", "sexo", "xxx", "adulto", "onlyfans", "explicit",
             "droga", "weed", "marihuana", "cocaína", "heroína", "lsd", "mdma",
             "matar", "asesinar", "violencia", "armas", "pistola", "disparar",
@@ -21,15 +24,18 @@ public class AutoModerationService {
             "estafa", "scam", "fraude", "timar", "engaño"
     );
 
-    private final Set<String> SUSPICIOUS_WORDS = Set.of(
+    private static final Set<String> SUSPICIOUS_WORDS = Set.of(
             "gratis", "free", "oferta", "descuento", "urgente", "inmediato",
             "ganar dinero", "trabajo desde casa", "millonario", "rico",
             "cripto", "bitcoin", "inversión", "forex", "apuesta"
     );
 
-    private final Pattern URL_PATTERN = Pattern.compile("https?://[^\\s]+");
-    private final Pattern EMAIL_PATTERN = Pattern.compile("\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b");
-    private final Pattern PHONE_PATTERN = Pattern.compile("\\b\\d{9,15}\\b");
+    private record WordScan(List<String> banned, boolean suspicious) {
+    }
+
+    // Diccionario compilado e inmutable: moderar solo lee la referencia y recargar la sustituye
+    private final AtomicReference<MultiPatternMatcher<ModerationWordCategory>> wordMatcher =
+            new AtomicReference<>(MultiPatternMatcher.compile(defaultDictionary()));
 
     public ModerationResult moderateBrand(String name, String description, String imageUrl) {
         log.info("Moderando marca: {}", name);
@@ -45,30 +51,20 @@ public class AutoModerationService {
             return new ModerationResult(ModerationStatus.REJECTED, "La descripción debe tener al menos 10 caracteres");
         }
 
-        String nameLower = name.toLowerCase();
-        String descLower = description.toLowerCase();
-
-        for (String bannedWord : BANNED_WORDS) {
-            if (nameLower.contains(bannedWord) || descLower.contains(bannedWord)) {
-                return new ModerationResult(ModerationStatus.REJECTED,
-                        "Contiene lenguaje inapropiado: " + bannedWord);
-            }
+        WordScan words = scanWords(name, description);
+        if (!words.banned().isEmpty()) {
+            return new ModerationResult(ModerationStatus.REJECTED,
+                    "Contiene lenguaje inapropiado: " + String.join(", ", words.banned()));
         }
 
-        boolean hasSuspicious = false;
-        for (String suspiciousWord : SUSPICIOUS_WORDS) {
-            if (nameLower.contains(suspiciousWord) || descLower.contains(suspiciousWord)) {
-                hasSuspicious = true;
-                break;
-            }
-        }
+        boolean hasSuspicious = words.suspicious();
 
-        if (containsUrlsOrContacts(description)) {
+        if (ContentPatterns.containsUrlsOrContacts(description)) {
             return new ModerationResult(ModerationStatus.REJECTED,
                     "No se permiten URLs o información de contacto en la descripción");
         }
 
-        if (imageUrl != null && !isValidImageUrl(imageUrl)) {
+        if (imageUrl != null && !ContentPatterns.isValidImageUrl(imageUrl)) {
             return new ModerationResult(ModerationStatus.REJECTED,
                     "URL de imagen no válida");
         }
@@ -103,30 +99,20 @@ public class AutoModerationService {
             return new ModerationResult(ModerationStatus.REJECTED, "Stock no válido");
         }
 
-        String nameLower = name.toLowerCase();
-        String descLower = description.toLowerCase();
-
-        for (String bannedWord : BANNED_WORDS) {
-            if (nameLower.contains(bannedWord) || descLower.contains(bannedWord)) {
-                return new ModerationResult(ModerationStatus.REJECTED,
-                        "Contiene lenguaje inapropiado: " + bannedWord);
-            }
+        WordScan words = scanWords(name, description);
+        if (!words.banned().isEmpty()) {
+            return new ModerationResult(ModerationStatus.REJECTED,
+                    "Contiene lenguaje inapropiado: " + String.join(", ", words.banned()));
         }
 
-        boolean hasSuspicious = false;
-        for (String suspiciousWord : SUSPICIOUS_WORDS) {
-            if (nameLower.contains(suspiciousWord) || descLower.contains(suspiciousWord)) {
-                hasSuspicious = true;
-                break;
-            }
-        }
+        boolean hasSuspicious = words.suspicious();
 
-        if (containsUrlsOrContacts(description)) {
+        if (ContentPatterns.containsUrlsOrContacts(description)) {
             return new ModerationResult(ModerationStatus.REJECTED,
                     "No se permiten URLs o información de contacto en la descripción");
         }
 
-        if (imageUrl != null && !isValidImageUrl(imageUrl)) {
+        if (imageUrl != null && !ContentPatterns.isValidImageUrl(imageUrl)) {
             return new ModerationResult(ModerationStatus.REJECTED,
                     "URL de imagen no válida");
         }
@@ -149,30 +135,42 @@ public class AutoModerationService {
         return new ModerationResult(ModerationStatus.APPROVED, "Aprobado automáticamente");
     }
 
-    private boolean containsUrlsOrContacts(String text) {
-        if (text == null) return false;
-
-        return URL_PATTERN.matcher(text).find() ||
-                EMAIL_PATTERN.matcher(text).find() ||
-                PHONE_PATTERN.matcher(text).find();
+    /**
+     * Palabras incluidas en el código. Sirven de diccionario inicial y para sembrar la
+     * tabla {@code moderation_words} la primera vez.
+     */
+    public static Map<String, ModerationWordCategory> defaultDictionary() {
+        Map<String, ModerationWordCategory> dictionary = new LinkedHashMap<>();
+        BANNED_WORDS.forEach(word -> dictionary.put(word, ModerationWordCategory.BANNED));
+        SUSPICIOUS_WORDS.forEach(word -> dictionary.putIfAbsent(word, ModerationWordCategory.SUSPICIOUS));
+        return dictionary;
     }
 
-    private boolean isValidImageUrl(String url) {
-        if (url == null || url.trim().isEmpty()) return false;
-
-        if (!url.startsWith("http://") && !url.startsWith("https://")) {
-            return false;
-        }
-
-        String lowerUrl = url.toLowerCase();
-        return lowerUrl.matches(".*\\.(jpg|jpeg|png|gif|bmp|webp)(\\?.*)?$");
+    /**
+     * Compila y publica un nuevo diccionario. La compilación ocurre fuera de cualquier
+     * bloqueo y el cambio es un único set atómico, así que las moderaciones en curso
+     * terminan con el diccionario anterior y ninguna espera.
+     */
+    public void publishDictionary(Map<String, ModerationWordCategory> dictionary) {
+        MultiPatternMatcher<ModerationWordCategory> compiled = MultiPatternMatcher.compile(dictionary);
+        wordMatcher.set(compiled);
+        log.info("Diccionario de moderación publicado: {} palabras", compiled.size());
     }
 
-    public void addBannedWord(String word) {
-        BANNED_WORDS.add(word.toLowerCase());
+    public int dictionarySize() {
+        return wordMatcher.get().size();
     }
 
-    public void removeBannedWord(String word) {
-        BANNED_WORDS.remove(word.toLowerCase());
+    private WordScan scanWords(String name, String description) {
+        Set<String> banned = new LinkedHashSet<>();
+        boolean suspicious = false;
+        for (MultiPatternMatcher.Match<ModerationWordCategory> match : wordMatcher.get().findAll(name, description)) {
+            if (match.value() == ModerationWordCategory.BANNED) {
+                banned.add(match.word());
+            } else {
+                suspicious = true;
+            }
+        }
+        return new WordScan(List.copyOf(banned), suspicious);
     }
-}
\ No newline at end of file
+}
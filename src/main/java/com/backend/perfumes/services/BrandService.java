@@ -1,18 +1,28 @@
 package com.backend.perfumes.services;
 
-import com.backend.perfumes.dto.ModerationResult;
+import com.backend.perfumes.dto.BrandDTO;
+import com.backend.perfumes.dto.BrandDashboardDTO;
+import com.backend.perfumes.dto.PerfumeDTO;
 import com.backend.perfumes.model.Brand;
+import com.backend.perfumes.model.ImageVariant;
 import com.backend.perfumes.model.ModerationStatus;
+import com.backend.perfumes.model.Perfume;
 import com.backend.perfumes.model.User;
 import com.backend.perfumes.repositories.BrandRepository;
+import com.backend.perfumes.repositories.PerfumeRepository;
 import com.backend.perfumes.repositories.UserRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
 public class BrandService {
@@ -20,14 +30,19 @@ public class BrandService {
     private final BrandRepository brandRepository;
     private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
-    private final AutoModerationService autoModerationService;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final PerfumeRepository perfumeRepository;
+    private final ModerationPipeline moderationPipeline;
 
     public BrandService(BrandRepository brandRepository, UserRepository userRepository,
-                        FileStorageService fileStorageService, AutoModerationService autoModerationService) {
+                        FileStorageService fileStorageService, CatalogSearchIndex catalogSearchIndex,
+                        PerfumeRepository perfumeRepository, ModerationPipeline moderationPipeline) {
         this.brandRepository = brandRepository;
         this.userRepository = userRepository;
         this.fileStorageService = fileStorageService;
-        this.autoModerationService = autoModerationService;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.perfumeRepository = perfumeRepository;
+        this.moderationPipeline = moderationPipeline;
     }
 
     public Brand crearBrand(Brand brand, String username) {
@@ -35,42 +50,39 @@ public class BrandService {
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
         brand.setUser(user);
 
-        ModerationResult result = autoModerationService.moderateBrand(
-                brand.getName(), brand.getDescription(), brand.getImageUrl());
-
-        brand.setModerationStatus(result.getStatus());
-        brand.setRejectionReason(result.getReason());
-        brand.setModerationDate(LocalDateTime.now());
-        brand.setModeratedBy("AUTO_MODERATOR");
+        moderationPipeline.markQueued(brand);
 
         if (brand.getImageUrl() == null || brand.getImageUrl().isEmpty()) {
             brand.setImageUrl(fileStorageService.getDefaultBrandImageUrl());
         }
 
-        return brandRepository.save(brand);
-    }
-
-    public Brand crearBrandConImagen(Brand brand, String username, MultipartFile imagen) throws IOException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
-        brand.setUser(user);
-
-        if (imagen != null && !imagen.isEmpty()) {
-            String imageUrl = fileStorageService.storeFile(imagen);
-            brand.setImageUrl(imageUrl);
-        } else {
-            brand.setImageUrl("/uploads/default-brand.jpg");
+        Brand guardada = brandRepository.save(brand);
+        moderationPipeline.submit(ModerationPipeline.Kind.BRAND, guardada.getId());
+        return guardada;
+    }
+
+    /**
+     * {@code imageUrl} es la imagen ya guardada al leer el formulario; si la marca no llega a
+     * crearse, se libera su referencia.
+     */
+    public Brand crearBrandConImagen(Brand brand, String username, String imageUrl) throws IOException {
+        try {
+            User user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+            brand.setUser(user);
+            brand.setImageUrl(imageUrl != null ? imageUrl : "/uploads/default-brand.jpg");
+
+            moderationPipeline.markQueued(brand);
+
+            Brand guardada = brandRepository.save(brand);
+            moderationPipeline.submit(ModerationPipeline.Kind.BRAND, guardada.getId());
+            return guardada;
+        } catch (RuntimeException e) {
+            if (imageUrl != null) {
+                fileStorageService.deleteFile(imageUrl);
+            }
+            throw e;
         }
-
-        ModerationResult result = autoModerationService.moderateBrand(
-                brand.getName(), brand.getDescription(), brand.getImageUrl());
-
-        brand.setModerationStatus(result.getStatus());
-        brand.setRejectionReason(result.getReason());
-        brand.setModerationDate(LocalDateTime.now());
-        brand.setModeratedBy("AUTO_MODERATOR");
-
-        return brandRepository.save(brand);
     }
 
     public List<Brand> listarBrandsPorUsuario(String username) {
@@ -85,6 +97,58 @@ public class BrandService {
         return brandRepository.findByUserAndFiltro(user, filtro);
     }
 
+    /**
+     * Panel de marcas del vendedor: una página de marcas, sus perfumes en una sola consulta
+     * (IN sobre los ids de la página) y los conteos por estado agrupados en la base de datos bajo los mismos filtros.
+     */
+    public BrandDashboardDTO obtenerPanelMarcas(String username, String filtro, ModerationStatus status,
+                                                Pageable pageable) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+        String filtroNormalizado = filtro != null && !filtro.isEmpty() ? filtro : null;
+
+        Page<Brand> marcas = brandRepository.findByUserAndFiltroAndStatus(user, filtroNormalizado, status, pageable);
+
+        Map<Long, List<PerfumeDTO>> perfumesPorMarca = marcas.isEmpty()
+                ? Map.of()
+                : perfumeRepository.findByBrandIdInAndUser(
+                        marcas.getContent().stream().map(Brand::getId).toList(), user)
+                .stream()
+                .collect(Collectors.groupingBy(p -> p.getBrand().getId(),
+                        Collectors.mapping(PerfumeDTO::fromEntity, Collectors.toList())));
+
+        Page<BrandDTO> marcasDTO = marcas.map(marca -> {
+            List<PerfumeDTO> perfumes = perfumesPorMarca.getOrDefault(marca.getId(), List.of());
+
+            BrandDTO dto = new BrandDTO();
+            dto.setId(marca.getId());
+            dto.setName(marca.getName());
+            dto.setDescription(marca.getDescription());
+            dto.setCountryOrigin(marca.getCountryOrigin());
+            dto.setCreador(user.getUsername());
+            dto.setPerfumes(perfumes);
+            dto.setTotalPerfumes(perfumes.size());
+            dto.setImageUrl(marca.getImageUrl());
+            dto.setImageVariants(ImageVariant.urlsFor(marca.getImageUrl()));
+            dto.setModerationStatus(marca.getModerationStatus());
+            dto.setRejectionReason(marca.getRejectionReason());
+            return dto;
+        });
+
+        Map<ModerationStatus, Long> conteos = new LinkedHashMap<>();
+        // Mismo filtro que la página: con status, los demás estados cuentan 0
+        for (Object[] fila : brandRepository.countByUserAndFiltroAndStatusGroupByStatus(user, filtroNormalizado, status)) {
+            conteos.put((ModerationStatus) fila[0], (Long) fila[1]);
+        }
+        Map<String, Long> moderationStats = new LinkedHashMap<>();
+        moderationStats.put("approved", conteos.getOrDefault(ModerationStatus.APPROVED, 0L));
+        moderationStats.put("pending", conteos.getOrDefault(ModerationStatus.PENDING_REVIEW, 0L));
+        moderationStats.put("rejected", conteos.getOrDefault(ModerationStatus.REJECTED, 0L));
+        moderationStats.put("draft", conteos.getOrDefault(ModerationStatus.DRAFT, 0L));
+
+        return new BrandDashboardDTO(marcasDTO, moderationStats);
+    }
+
     public List<Brand> listarBrandsPublicas() {
         return brandRepository.findByModerationStatus(ModerationStatus.APPROVED);
     }
@@ -121,6 +185,7 @@ public class BrandService {
 
     public Brand actualizarBrand(Long id, Brand brand) {
         Brand existente = obtenerBrandPorId(id);
+        boolean renombrada = !Objects.equals(existente.getName(), brand.getName());
         existente.setName(brand.getName());
         existente.setDescription(brand.getDescription());
         existente.setCountryOrigin(brand.getCountryOrigin());
@@ -129,15 +194,16 @@ public class BrandService {
             existente.setImageUrl(brand.getImageUrl());
         }
 
-        ModerationResult result = autoModerationService.moderateBrand(
-                existente.getName(), existente.getDescription(), existente.getImageUrl());
+        moderationPipeline.markQueued(existente);
 
-        existente.setModerationStatus(result.getStatus());
-        existente.setRejectionReason(result.getReason());
-        existente.setModerationDate(LocalDateTime.now());
-        existente.setModeratedBy("AUTO_MODERATOR");
-
-        return brandRepository.save(existente);
+        Brand actualizada = brandRepository.save(existente);
+        if (renombrada) {
+            // El nombre de la marca forma parte del documento de búsqueda de cada perfume
+            perfumeRepository.refreshSearchDocumentsByBrand(actualizada.getId());
+            catalogSearchIndex.onBrandRenamed(actualizada.getId(), actualizada.getName());
+        }
+        moderationPipeline.submit(ModerationPipeline.Kind.BRAND, actualizada.getId());
+        return actualizada;
     }
 
     public Brand aprobarBrand(Long id, String adminUsername) {
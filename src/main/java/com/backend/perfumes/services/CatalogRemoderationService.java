@@ -0,0 +1,340 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.dto.ModerationDecision;
+import com.backend.perfumes.dto.ModerationResult;
+import com.backend.perfumes.exceptions.BusinessException;
+import com.backend.perfumes.model.*;
+import com.backend.perfumes.repositories.BrandRepository;
+import com.backend.perfumes.repositories.PerfumeRepository;
+import com.backend.perfumes.repositories.RemoderationJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Re-moderación de todo el catálogo aprobado con el diccionario vigente. Un hilo coordinador
+ * recorre marcas y después perfumes por trozos ordenados por id, cada uno en una transacción
+ * de solo lectura; los trozos se moderan en paralelo y solo se escriben, en lote, los
+ * elementos que dejan de estar aprobados. El avance se confirma en orden en
+ * {@code remoderation_jobs}, así que tras una caída el trabajo continúa desde el último
+ * trozo terminado: repetir uno ya aplicado no cambia nada porque el UPDATE exige APPROVED.
+ */
+@Service
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CatalogRemoderationService implements ApplicationRunner {
+
+    private final PerfumeRepository perfumeRepository;
+    private final BrandRepository brandRepository;
+    private final RemoderationJobRepository remoderationJobRepository;
+    private final AutoModerationService autoModerationService;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int chunkSize;
+    private final int parallelism;
+
+    private volatile RunState active;
+
+    private record ChunkResult(long lastId, int scanned, int rejected, int sentToReview) {
+    }
+
+    private static final class RunState {
+        private final Long jobId;
+        private final long startedAt = System.nanoTime();
+        private final long toScan;
+        private final LongAdder scanned = new LongAdder();
+        private volatile boolean cancelled;
+
+        private RunState(Long jobId, long toScan) {
+            this.jobId = jobId;
+            this.toScan = toScan;
+        }
+    }
+
+    public CatalogRemoderationService(PerfumeRepository perfumeRepository,
+                                      BrandRepository brandRepository,
+                                      RemoderationJobRepository remoderationJobRepository,
+                                      AutoModerationService autoModerationService,
+                                      CatalogSearchIndex catalogSearchIndex,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.moderation.remoderation.chunk-size:500}") int chunkSize,
+                                      @Value("${app.moderation.remoderation.parallelism:0}") int parallelism) {
+        this.perfumeRepository = perfumeRepository;
+        this.brandRepository = brandRepository;
+        this.remoderationJobRepository = remoderationJobRepository;
+        this.autoModerationService = autoModerationService;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Corre después de ModerationDictionaryService: los trozos reanudados usan el diccionario de la base
+    @Override
+    public void run(ApplicationArguments args) {
+        remoderationJobRepository.findByStatus(RemoderationJobStatus.RUNNING).stream()
+                .findFirst()
+                .ifPresent(job -> {
+                    log.info("Re-moderación: se reanuda el trabajo {} interrumpido", job.getId());
+                    launch(job);
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        RunState state = active;
+        if (state != null) {
+            // El trabajo queda RUNNING en la base y se reanuda en el próximo arranque
+            state.cancelled = true;
+        }
+    }
+
+    /**
+     * Lanza la re-moderación, o reanuda la última que quedó a medias o falló.
+     */
+    public synchronized RemoderationJob start(String username) {
+        if (active != null) {
+            throw new BusinessException("Ya hay una re-moderación del catálogo en curso", HttpStatus.CONFLICT);
+        }
+
+        RemoderationJob job = remoderationJobRepository.findTopByOrderByIdDesc()
+                .filter(last -> last.getStatus() != RemoderationJobStatus.COMPLETED)
+                .orElseGet(RemoderationJob::new);
+        if (job.getId() == null) {
+            job.setStartedBy(username);
+        }
+        job.setStatus(RemoderationJobStatus.RUNNING);
+        job.setErrorMessage(null);
+        job.setFinishedAt(null);
+        job = remoderationJobRepository.save(job);
+
+        launch(job);
+        return job;
+    }
+
+    public Map<String, Object> progress() {
+        // Antes que la fila: si el trabajo termina entre ambas lecturas, la fila ya dice COMPLETED
+        RunState state = active;
+        Map<String, Object> progress = new LinkedHashMap<>();
+        Optional<RemoderationJob> last = remoderationJobRepository.findTopByOrderByIdDesc();
+        if (last.isEmpty()) {
+            progress.put("running", false);
+            return progress;
+        }
+
+        RemoderationJob job = last.get();
+        progress.put("id", job.getId());
+        progress.put("status", job.getStatus());
+        progress.put("startedBy", job.getStartedBy());
+        progress.put("brandsScanned", job.getBrandsScanned());
+        progress.put("perfumesScanned", job.getPerfumesScanned());
+        progress.put("rejected", job.getRejected());
+        progress.put("sentToReview", job.getSentToReview());
+        progress.put("phase", job.isBrandsCompleted() ? "PERFUMES" : "BRANDS");
+        progress.put("startedAt", job.getStartedAt());
+        progress.put("updatedAt", job.getUpdatedAt());
+        progress.put("finishedAt", job.getFinishedAt());
+        progress.put("errorMessage", job.getErrorMessage());
+
+        boolean running = state != null && state.jobId.equals(job.getId());
+        progress.put("running", running);
+        if (running) {
+            long scanned = state.scanned.sum();
+            double seconds = Math.max((System.nanoTime() - state.startedAt) / 1_000_000_000.0, 0.001);
+            progress.put("scannedThisRun", scanned);
+            progress.put("remainingThisRun", Math.max(state.toScan - scanned, 0));
+            progress.put("percent", state.toScan == 0 ? 100.0 : Math.min(100.0, scanned * 100.0 / state.toScan));
+            progress.put("itemsPerSecond", Math.round(scanned / seconds));
+        }
+        return progress;
+    }
+
+    private void launch(RemoderationJob job) {
+        long toScan = (job.isBrandsCompleted() ? 0
+                : brandRepository.countByModerationStatusAndIdGreaterThan(ModerationStatus.APPROVED, job.getLastBrandId()))
+                + perfumeRepository.countByModerationStatusAndIdGreaterThan(ModerationStatus.APPROVED, job.getLastPerfumeId());
+        RunState state = new RunState(job.getId(), toScan);
+        active = state;
+        Thread.ofVirtual().name("remoderation-" + job.getId()).start(() -> execute(job, state));
+    }
+
+    private void execute(RemoderationJob job, RunState state) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism,
+                runnable -> new Thread(runnable, "remoderation-worker-" + threadNumber.incrementAndGet()));
+        try {
+            if (!job.isBrandsCompleted()) {
+                runPhase(job, state, pool, job.getLastBrandId(),
+                        from -> brandRepository.findForRemoderationByModerationStatusAndIdGreaterThanOrderByIdAsc(
+                                ModerationStatus.APPROVED, from, PageRequest.of(0, chunkSize)),
+                        Brand::getId, this::moderateBrands,
+                        result -> {
+                            job.setLastBrandId(result.lastId());
+                            job.setBrandsScanned(job.getBrandsScanned() + result.scanned());
+                        });
+                if (state.cancelled) {
+                    return;
+                }
+                job.setBrandsCompleted(true);
+                remoderationJobRepository.save(job);
+            }
+
+            runPhase(job, state, pool, job.getLastPerfumeId(),
+                    from -> perfumeRepository.findForRemoderationByModerationStatusAndIdGreaterThanOrderByIdAsc(
+                            ModerationStatus.APPROVED, from, PageRequest.of(0, chunkSize)),
+                    Perfume::getId, this::moderatePerfumes,
+                    result -> {
+                        job.setLastPerfumeId(result.lastId());
+                        job.setPerfumesScanned(job.getPerfumesScanned() + result.scanned());
+                    });
+            if (state.cancelled) {
+                return;
+            }
+
+            job.setStatus(RemoderationJobStatus.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+            remoderationJobRepository.save(job);
+            log.info("Re-moderación {} terminada: {} marcas y {} perfumes revisados, {} rechazados, {} a revisión",
+                    job.getId(), job.getBrandsScanned(), job.getPerfumesScanned(), job.getRejected(), job.getSentToReview());
+
+        } catch (Exception e) {
+            log.error("Re-moderación {} detenida: {}", job.getId(), e.getMessage());
+            job.setStatus(RemoderationJobStatus.FAILED);
+            String message = Objects.toString(e.getMessage(), e.getClass().getSimpleName());
+            job.setErrorMessage(message.length() > 255 ? message.substring(0, 255) : message);
+            job.setFinishedAt(LocalDateTime.now());
+            remoderationJobRepository.save(job);
+
+        } finally {
+            pool.shutdownNow();
+            active = null;
+        }
+    }
+
+    /**
+     * Lee trozos por id mientras los anteriores se moderan; como mucho hay {@code parallelism}
+     * trozos en vuelo. El avance solo se guarda al terminar el trozo más antiguo, de modo que
+     * el último id guardado nunca deja atrás un trozo sin aplicar.
+     */
+    private <E> void runPhase(RemoderationJob job, RunState state, ExecutorService pool, long from,
+                              LongFunction<List<E>> readChunk, Function<E, Long> idOf,
+                              Function<List<E>, ChunkResult> moderateChunk,
+                              Consumer<ChunkResult> advance) throws Exception {
+        Deque<Future<ChunkResult>> inFlight = new ArrayDeque<>();
+        long cursor = from;
+        while (!state.cancelled) {
+            long after = cursor;
+            List<E> chunk = readTransaction.execute(status -> readChunk.apply(after));
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            cursor = idOf.apply(chunk.get(chunk.size() - 1));
+
+            inFlight.add(pool.submit(() -> moderateChunk.apply(chunk)));
+            if (inFlight.size() >= parallelism) {
+                checkpoint(job, state, inFlight.poll().get(), advance);
+            }
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            checkpoint(job, state, inFlight.poll().get(), advance);
+        }
+    }
+
+    private void checkpoint(RemoderationJob job, RunState state, ChunkResult result,
+                            Consumer<ChunkResult> advance) {
+        advance.accept(result);
+        job.setRejected(job.getRejected() + result.rejected());
+        job.setSentToReview(job.getSentToReview() + result.sentToReview());
+        remoderationJobRepository.save(job);
+        state.scanned.add(result.scanned());
+    }
+
+    private ChunkResult moderatePerfumes(List<Perfume> perfumes) {
+        Map<Long, Perfume> byId = new HashMap<>();
+        List<ModerationDecision> downgrades = new ArrayList<>();
+        for (Perfume perfume : perfumes) {
+            ModerationResult result = autoModerationService.moderatePerfume(perfume.getName(), perfume.getDescription(),
+                    perfume.getPrice(), perfume.getStock(), perfume.getImageUrl());
+            if (result.getStatus() != ModerationStatus.APPROVED) {
+                downgrades.add(ModerationDecision.of(perfume.getId(), result));
+                byId.put(perfume.getId(), perfume);
+            }
+        }
+
+        List<ModerationDecision> applied = apply(downgrades, decisions -> {
+            List<Long> ids = perfumeRepository.applyRemoderationBatch(decisions, ModerationPipeline.MODERATED_BY);
+            Set<Long> changed = new HashSet<>(ids);
+            for (ModerationDecision decision : decisions) {
+                if (changed.contains(decision.id())) {
+                    // Entidad separada: el cambio solo sirve para retirarla del índice del catálogo
+                    Perfume perfume = byId.get(decision.id());
+                    perfume.setModerationStatus(decision.status());
+                    catalogSearchIndex.onPerfumeChanged(perfume);
+                }
+            }
+            return ids;
+        });
+        return result(perfumes, Perfume::getId, applied);
+    }
+
+    private ChunkResult moderateBrands(List<Brand> brands) {
+        List<ModerationDecision> downgrades = new ArrayList<>();
+        for (Brand brand : brands) {
+            ModerationResult result = autoModerationService.moderateBrand(
+                    brand.getName(), brand.getDescription(), brand.getImageUrl());
+            if (result.getStatus() != ModerationStatus.APPROVED) {
+                downgrades.add(ModerationDecision.of(brand.getId(), result));
+            }
+        }
+
+        List<ModerationDecision> applied = apply(downgrades,
+                decisions -> brandRepository.applyRemoderationBatch(decisions, ModerationPipeline.MODERATED_BY));
+        return result(brands, Brand::getId, applied);
+    }
+
+    private List<ModerationDecision> apply(List<ModerationDecision> downgrades,
+                                           Function<List<ModerationDecision>, List<Long>> write) {
+        if (downgrades.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = writeTransaction.execute(status -> write.apply(downgrades));
+        Set<Long> appliedIds = ids == null ? Set.of() : new HashSet<>(ids);
+        return downgrades.stream()
+                .filter(decision -> appliedIds.contains(decision.id()))
+                .toList();
+    }
+
+    private static <E> ChunkResult result(List<E> chunk, Function<E, Long> idOf, List<ModerationDecision> applied) {
+        int rejected = (int) applied.stream()
+                .filter(decision -> decision.status() == ModerationStatus.REJECTED)
+                .count();
+        return new ChunkResult(idOf.apply(chunk.get(chunk.size() - 1)), chunk.size(),
+                rejected, applied.size() - rejected);
+    }
+}
@@ -0,0 +1,762 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.dto.PerfumeDTO;
+import com.backend.perfumes.model.Genre;
+import com.backend.perfumes.model.ImageVariant;
+import com.backend.perfumes.model.ModerationStatus;
+import com.backend.perfumes.model.Perfume;
+import com.backend.perfumes.repositories.PerfumeRepository;
+import com.backend.perfumes.utils.SearchTextNormalizer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Índice invertido en memoria de los perfumes aprobados. Responde el listado y la
+ * búsqueda pública sin consultar la base de datos.
+ *
+ * Cada perfume recibe un ordinal denso; las listas de postings guardan ordinales en
+ * arreglos int crecientes. Actualizar un perfume marca su ordinal anterior como borrado
+ * y le asigna uno nuevo; cuando hay demasiados borrados el índice se compacta.
+ *
+ * El snapshot en disco se guarda al apagar y cada {@code app.search.snapshot-interval-ms}
+ * si hubo cambios, para que tras una caída no haya que releer todo lo modificado desde el
+ * último arranque. Al arrancar se carga el snapshot y solo se leen de la base los perfumes
+ * modificados desde entonces y la lista de ids aprobados.
+ */
+@Service
+@Slf4j
+public class CatalogSearchIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x50455246; // "PERF"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final long SNAPSHOT_SAFETY_MARGIN_MINUTES = 5;
+
+    private final PerfumeRepository perfumeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.search.snapshot-path:search-index.snapshot}")
+    private String snapshotPath;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<IndexedPerfume> docs = new ArrayList<>();
+    private final Map<Long, Integer> ordinalById = new HashMap<>();
+    private final TreeMap<String, IntPostings> postings = new TreeMap<>();
+    private int deletedCount;
+    private volatile int[] byIdDesc;
+    // Se incrementa con cada cambio bajo el lock de escritura; el snapshot recuerda el que guardó
+    private volatile long version;
+    private volatile long snapshotVersion = -1;
+
+    private volatile boolean ready;
+
+    /** Resultado de una búsqueda con la puntuación que decide su posición. */
+    public record Hit(PerfumeDTO perfume, int score) {
+    }
+
+    private record Scored(int ordinal, int score, long id) {
+    }
+
+    private static final Comparator<Scored> RANKING = Comparator.comparingInt(Scored::score).reversed()
+            .thenComparing(Comparator.comparingLong(Scored::id).reversed());
+
+    public CatalogSearchIndex(PerfumeRepository perfumeRepository, TransactionTemplate transactionTemplate) {
+        this.perfumeRepository = perfumeRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Antes que cualquier otro oyente de arranque que escriba en el índice
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void inicializar() {
+        long inicio = System.currentTimeMillis();
+        try {
+            LocalDateTime snapshotAt = loadSnapshot();
+            if (snapshotAt != null) {
+                catchUp(snapshotAt.minusMinutes(SNAPSHOT_SAFETY_MARGIN_MINUTES));
+                log.info("Índice de catálogo cargado desde snapshot: {} perfumes en {} ms",
+                        size(), System.currentTimeMillis() - inicio);
+            } else {
+                rebuildFromDatabase();
+                log.info("Índice de catálogo construido desde la base de datos: {} perfumes en {} ms",
+                        size(), System.currentTimeMillis() - inicio);
+                writeSnapshot();
+            }
+            ready = true;
+        } catch (Exception e) {
+            log.error("No se pudo construir el índice de catálogo, se usará la base de datos: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void guardarSnapshot() {
+        if (ready) {
+            writeSnapshot();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.snapshot-interval-ms:600000}",
+            initialDelayString = "${app.search.snapshot-interval-ms:600000}")
+    public void guardarSnapshotSiHayCambios() {
+        if (ready && version != snapshotVersion) {
+            writeSnapshot();
+        }
+    }
+
+    // ---------------------------------------------------------------- actualizaciones
+
+    /**
+     * Refleja en el índice el estado de un perfume una vez confirmada la transacción
+     * actual. Solo los perfumes aprobados quedan indexados.
+     */
+    public void onPerfumeChanged(Perfume perfume) {
+        if (perfume.getModerationStatus() == ModerationStatus.APPROVED) {
+            IndexedPerfume doc = IndexedPerfume.from(perfume);
+            afterCommit(() -> upsert(doc));
+        } else {
+            Long id = perfume.getId();
+            afterCommit(() -> remove(id));
+        }
+    }
+
+    public void onPerfumeDeleted(Long perfumeId) {
+        afterCommit(() -> remove(perfumeId));
+    }
+
+    public void onBrandRenamed(Long brandId, String brandName) {
+        afterCommit(() -> replaceAll(doc -> brandId.equals(doc.brandId()), doc -> doc.withBrandName(brandName)));
+    }
+
+    public void onCategoryRenamed(Long categoryId, String categoryName) {
+        afterCommit(() -> replaceAll(doc -> categoryId.equals(doc.categoryId()),
+                doc -> doc.withCategoryName(categoryName)));
+    }
+
+    private void replaceAll(Predicate<IndexedPerfume> affected, UnaryOperator<IndexedPerfume> change) {
+        lock.writeLock().lock();
+        try {
+            List<IndexedPerfume> changed = new ArrayList<>();
+            for (IndexedPerfume doc : docs) {
+                if (doc != null && affected.test(doc)) {
+                    changed.add(change.apply(doc));
+                }
+            }
+            changed.forEach(this::upsertLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajusta el stock de un perfume indexado tras la confirmación; los términos no cambian,
+     * así que basta con reemplazar el documento en su misma posición.
+     */
+    public void onStockChanged(Long perfumeId, int delta) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                Integer ordinal = ordinalById.get(perfumeId);
+                if (ordinal != null) {
+                    IndexedPerfume doc = docs.get(ordinal);
+                    int stock = doc.stock() == null ? 0 : doc.stock();
+                    docs.set(ordinal, doc.withStock(stock + delta));
+                    version++;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    void upsert(IndexedPerfume doc) {
+        lock.writeLock().lock();
+        try {
+            upsertLocked(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long perfumeId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(perfumeId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsertLocked(IndexedPerfume doc) {
+        removeLocked(doc.id());
+        int ordinal = docs.size();
+        docs.add(doc);
+        ordinalById.put(doc.id(), ordinal);
+        for (String term : doc.terms()) {
+            postings.computeIfAbsent(term, t -> new IntPostings()).add(ordinal);
+        }
+        byIdDesc = null;
+        version++;
+        compactIfNeeded();
+    }
+
+    private void removeLocked(Long perfumeId) {
+        Integer previous = ordinalById.remove(perfumeId);
+        if (previous != null) {
+            docs.set(previous, null);
+            deletedCount++;
+            byIdDesc = null;
+            version++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deletedCount < 1000 || deletedCount * 4 < docs.size()) {
+            return;
+        }
+        List<IndexedPerfume> live = docs.stream().filter(Objects::nonNull).toList();
+        resetLocked();
+        live.forEach(this::upsertLocked);
+    }
+
+    private void resetLocked() {
+        docs.clear();
+        ordinalById.clear();
+        postings.clear();
+        deletedCount = 0;
+        byIdDesc = null;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // ---------------------------------------------------------------- consultas
+
+    public Optional<PerfumeDTO> findById(Long perfumeId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(perfumeId);
+            return ordinal == null ? Optional.empty() : Optional.of(docs.get(ordinal).toDto());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sin filtro devuelve los perfumes del más reciente al más antiguo; con filtro exige
+     * que todos los términos coincidan (por prefijo) y ordena por relevancia.
+     */
+    public Page<PerfumeDTO> search(String filtro, Pageable pageable) {
+        List<String> queryTerms = SearchTextNormalizer.tokens(filtro);
+
+        lock.readLock().lock();
+        try {
+            if (queryTerms.isEmpty()) {
+                int[] matches = allByIdDesc();
+                int from = (int) Math.min(pageable.getOffset(), matches.length);
+                int to = Math.min(from + pageable.getPageSize(), matches.length);
+                List<PerfumeDTO> content = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    content.add(docs.get(matches[i]).toDto());
+                }
+                return new PageImpl<>(content, pageable, matches.length);
+            }
+
+            BitSet matches = matching(queryTerms);
+            int total = countLive(matches);
+            // Solo se ordenan los resultados hasta el final de la página pedida
+            int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), total);
+            List<Scored> top = topMatches(matches, queryTerms, 0, null, limit);
+            int from = (int) Math.min(pageable.getOffset(), top.size());
+            List<PerfumeDTO> content = new ArrayList<>(top.size() - from);
+            for (Scored match : top.subList(from, top.size())) {
+                content.add(docs.get(match.ordinal()).toDto());
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Búsqueda por keyset sobre el mismo orden que {@link #search}: devuelve hasta
+     * {@code limit} resultados posteriores a {@code (afterScore, afterId)}, o desde el
+     * principio si {@code afterId} es null. El filtro debe tener al menos un término.
+     */
+    public List<Hit> searchAfter(String filtro, int afterScore, Long afterId, int limit) {
+        List<String> queryTerms = SearchTextNormalizer.tokens(filtro);
+
+        lock.readLock().lock();
+        try {
+            List<Scored> top = topMatches(matching(queryTerms), queryTerms, afterScore, afterId, limit);
+            List<Hit> hits = new ArrayList<>(top.size());
+            for (Scored match : top) {
+                hits.add(new Hit(docs.get(match.ordinal()).toDto(), match.score()));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(String filtro) {
+        List<String> queryTerms = SearchTextNormalizer.tokens(filtro);
+
+        lock.readLock().lock();
+        try {
+            return queryTerms.isEmpty() ? ordinalById.size() : countLive(matching(queryTerms));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] allByIdDesc() {
+        int[] cached = byIdDesc;
+        if (cached != null) {
+            return cached;
+        }
+        cached = ordinalById.values().stream()
+                .sorted(Comparator.comparing((Integer o) -> docs.get(o).id()).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        // Cálculo idempotente bajo lock de lectura: si dos hilos lo hacen a la vez ambos obtienen lo mismo
+        byIdDesc = cached;
+        return cached;
+    }
+
+    /** Ordinales que contienen todos los términos (por prefijo); puede incluir documentos borrados. */
+    private BitSet matching(List<String> queryTerms) {
+        BitSet result = null;
+        for (String term : queryTerms) {
+            BitSet termMatches = new BitSet(docs.size());
+            for (IntPostings list : postings.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+                list.addTo(termMatches);
+            }
+            if (result == null) {
+                result = termMatches;
+            } else {
+                result.and(termMatches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result != null ? result : new BitSet();
+    }
+
+    private int countLive(BitSet matches) {
+        if (deletedCount == 0) {
+            return matches.cardinality();
+        }
+        int count = 0;
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            if (docs.get(ordinal) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Los {@code limit} mejores resultados posteriores a {@code (afterScore, afterId)}, por score
+     * descendente y, a igual score, id descendente. Un montículo acotado evita ordenar todas las
+     * coincidencias: el coste es O(n log limit) en lugar de O(n log n).
+     */
+    private List<Scored> topMatches(BitSet matches, List<String> queryTerms, int afterScore, Long afterId,
+                                    int limit) {
+        if (limit <= 0 || matches.isEmpty()) {
+            return List.of();
+        }
+        // Cabeza del montículo: el peor de los que se conservan
+        PriorityQueue<Scored> top = new PriorityQueue<>(Math.min(limit, 1024) + 1, RANKING.reversed());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            IndexedPerfume doc = docs.get(ordinal);
+            if (doc == null) {
+                continue;
+            }
+            int score = doc.score(queryTerms);
+            if (afterId != null && (score > afterScore || (score == afterScore && doc.id() >= afterId))) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(new Scored(ordinal, score, doc.id()));
+            } else if (ranksBefore(score, doc.id(), top.peek())) {
+                top.poll();
+                top.add(new Scored(ordinal, score, doc.id()));
+            }
+        }
+        List<Scored> sorted = new ArrayList<>(top);
+        sorted.sort(RANKING);
+        return sorted;
+    }
+
+    private static boolean ranksBefore(int score, long id, Scored other) {
+        return score > other.score() || (score == other.score() && id > other.id());
+    }
+
+    // ---------------------------------------------------------------- carga
+
+    private void rebuildFromDatabase() {
+        List<IndexedPerfume> loaded = new ArrayList<>();
+        long lastId = 0;
+        while (true) {
+            long desde = lastId;
+            List<IndexedPerfume> batch = transactionTemplate.execute(status ->
+                    perfumeRepository.findByModerationStatusAndIdGreaterThanOrderByIdAsc(
+                                    ModerationStatus.APPROVED, desde, PageRequest.of(0, LOAD_BATCH_SIZE))
+                            .stream().map(IndexedPerfume::from).toList());
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            loaded.addAll(batch);
+            lastId = batch.get(batch.size() - 1).id();
+        }
+
+        lock.writeLock().lock();
+        try {
+            resetLocked();
+            loaded.forEach(this::upsertLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void catchUp(LocalDateTime since) {
+        long lastId = 0;
+        int changed = 0;
+        while (true) {
+            long desde = lastId;
+            List<Perfume> batch = transactionTemplate.execute(status -> {
+                List<Perfume> perfumes = perfumeRepository.findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(
+                        since, desde, PageRequest.of(0, LOAD_BATCH_SIZE));
+                perfumes.forEach(p -> {
+                    if (p.getModerationStatus() == ModerationStatus.APPROVED) {
+                        upsert(IndexedPerfume.from(p));
+                    } else {
+                        remove(p.getId());
+                    }
+                });
+                return perfumes;
+            });
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            changed += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+
+        Set<Long> approved = new HashSet<>(perfumeRepository.findIdsByModerationStatus(ModerationStatus.APPROVED));
+        lock.writeLock().lock();
+        try {
+            List<Long> stale = ordinalById.keySet().stream().filter(id -> !approved.contains(id)).toList();
+            stale.forEach(this::removeLocked);
+            compactIfNeeded();
+            log.info("Índice de catálogo sincronizado: {} perfumes modificados, {} eliminados", changed, stale.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private LocalDateTime loadSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Snapshot de índice con formato desconocido, se reconstruye: {}", path);
+                return null;
+            }
+            LocalDateTime snapshotAt = LocalDateTime.parse(in.readUTF());
+            int count = in.readInt();
+            List<IndexedPerfume> loaded = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                loaded.add(IndexedPerfume.read(in));
+            }
+
+            lock.writeLock().lock();
+            try {
+                resetLocked();
+                loaded.forEach(this::upsertLocked);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return snapshotAt;
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo leer el snapshot del índice ({}), se reconstruye desde la base", e.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized void writeSnapshot() {
+        Path path = Paths.get(snapshotPath).toAbsolutePath();
+        LocalDateTime snapshotAt = LocalDateTime.now();
+        List<IndexedPerfume> live;
+        long capturedVersion;
+        lock.readLock().lock();
+        try {
+            live = docs.stream().filter(Objects::nonNull).toList();
+            capturedVersion = version;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeUTF(snapshotAt.toString());
+                out.writeInt(live.size());
+                for (IndexedPerfume doc : live) {
+                    doc.write(out);
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            snapshotVersion = capturedVersion;
+            log.info("Snapshot del índice de catálogo guardado: {} perfumes en {}", live.size(), path);
+        } catch (IOException e) {
+            log.error("No se pudo guardar el snapshot del índice: {}", e.getMessage());
+        }
+    }
+
+    // ---------------------------------------------------------------- estructuras
+
+    /** Lista de ordinales en un arreglo int que crece al doble. */
+    static final class IntPostings {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            if (size > 0 && values[size - 1] == ordinal) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = ordinal;
+        }
+
+        void addTo(BitSet target) {
+            for (int i = 0; i < size; i++) {
+                target.set(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Documento indexado. {@code nameTerms} y {@code brandTerms} se tokenizan una sola vez al
+     * construirlo, porque se consultan al puntuar cada coincidencia.
+     */
+    record IndexedPerfume(Long id, String name, String description, Double price, Integer stock,
+                          Integer sizeMl, Genre genre, LocalDate releaseDate, Long brandId, String brandName,
+                          Long categoryId, String categoryName, String imageUrl, String creador,
+                          List<String> nameTerms, List<String> brandTerms) {
+
+        IndexedPerfume(Long id, String name, String description, Double price, Integer stock,
+                       Integer sizeMl, Genre genre, LocalDate releaseDate, Long brandId, String brandName,
+                       Long categoryId, String categoryName, String imageUrl, String creador) {
+            this(id, name, description, price, stock, sizeMl, genre, releaseDate, brandId, brandName,
+                    categoryId, categoryName, imageUrl, creador,
+                    List.copyOf(SearchTextNormalizer.tokens(name)), List.copyOf(SearchTextNormalizer.tokens(brandName)));
+        }
+
+        static IndexedPerfume from(Perfume perfume) {
+            PerfumeDTO dto = PerfumeDTO.fromEntity(perfume);
+            return new IndexedPerfume(dto.getId(), dto.getName(), dto.getDescription(), dto.getPrice(),
+                    dto.getStock(), dto.getSizeMl(), dto.getGenre(), dto.getReleaseDate(), dto.getBrandId(),
+                    dto.getBrandName(), dto.getCategoryId(), dto.getCategoryName(), dto.getImageUrl(),
+                    dto.getCreador());
+        }
+
+        IndexedPerfume withBrandName(String newBrandName) {
+            return new IndexedPerfume(id, name, description, price, stock, sizeMl, genre, releaseDate,
+                    brandId, newBrandName, categoryId, categoryName, imageUrl, creador);
+        }
+
+        IndexedPerfume withCategoryName(String newCategoryName) {
+            return new IndexedPerfume(id, name, description, price, stock, sizeMl, genre, releaseDate,
+                    brandId, brandName, categoryId, newCategoryName, imageUrl, creador, nameTerms, brandTerms);
+        }
+
+        IndexedPerfume withStock(Integer newStock) {
+            return new IndexedPerfume(id, name, description, price, newStock, sizeMl, genre, releaseDate,
+                    brandId, brandName, categoryId, categoryName, imageUrl, creador, nameTerms, brandTerms);
+        }
+
+        Set<String> terms() {
+            Set<String> terms = new HashSet<>();
+            terms.addAll(SearchTextNormalizer.tokens(name));
+            terms.addAll(SearchTextNormalizer.tokens(description));
+            terms.addAll(SearchTextNormalizer.tokens(brandName));
+            terms.addAll(SearchTextNormalizer.tokens(categoryName));
+            if (genre != null) {
+                terms.addAll(SearchTextNormalizer.tokens(genre.name()));
+            }
+            return terms;
+        }
+
+        /** Coincidencias en el nombre pesan 3, en la marca 2 y en el resto 1. */
+        int score(List<String> queryTerms) {
+            int score = 0;
+            for (String q : queryTerms) {
+                if (anyStartsWith(nameTerms, q)) {
+                    score += 3;
+                } else if (anyStartsWith(brandTerms, q)) {
+                    score += 2;
+                } else {
+                    score += 1;
+                }
+            }
+            return score;
+        }
+
+        private static boolean anyStartsWith(List<String> terms, String prefix) {
+            for (String term : terms) {
+                if (term.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        PerfumeDTO toDto() {
+            PerfumeDTO dto = new PerfumeDTO();
+            dto.setId(id);
+            dto.setName(name);
+            dto.setDescription(description);
+            dto.setPrice(price);
+            dto.setStock(stock);
+            dto.setSizeMl(sizeMl);
+            dto.setGenre(genre);
+            dto.setReleaseDate(releaseDate);
+            dto.setBrandId(brandId);
+            dto.setBrandName(brandName);
+            dto.setCategoryId(categoryId);
+            dto.setCategoryName(categoryName);
+            dto.setImageUrl(imageUrl);
+            dto.setImageVariants(ImageVariant.urlsFor(imageUrl));
+            dto.setCreador(creador);
+            dto.setModerationStatus(ModerationStatus.APPROVED);
+            return dto;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(id);
+            writeString(out, name);
+            writeString(out, description);
+            out.writeBoolean(price != null);
+            if (price != null) out.writeDouble(price);
+            writeInteger(out, stock);
+            writeInteger(out, sizeMl);
+            writeString(out, genre != null ? genre.name() : null);
+            writeString(out, releaseDate != null ? releaseDate.toString() : null);
+            writeLong(out, brandId);
+            writeString(out, brandName);
+            writeLong(out, categoryId);
+            writeString(out, categoryName);
+            writeString(out, imageUrl);
+            writeString(out, creador);
+        }
+
+        static IndexedPerfume read(DataInputStream in) throws IOException {
+            long id = in.readLong();
+            String name = readString(in);
+            String description = readString(in);
+            Double price = in.readBoolean() ? in.readDouble() : null;
+            Integer stock = readInteger(in);
+            Integer sizeMl = readInteger(in);
+            String genre = readString(in);
+            String releaseDate = readString(in);
+            Long brandId = readLong(in);
+            String brandName = readString(in);
+            Long categoryId = readLong(in);
+            String categoryName = readString(in);
+            String imageUrl = readString(in);
+            String creador = readString(in);
+            return new IndexedPerfume(id, name, description, price, stock, sizeMl,
+                    genre != null ? Genre.valueOf(genre) : null,
+                    releaseDate != null ? LocalDate.parse(releaseDate) : null,
+                    brandId, brandName, categoryId, categoryName, imageUrl, creador);
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) out.writeUTF(value);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+
+        private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) out.writeInt(value);
+        }
+
+        private static Integer readInteger(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readInt() : null;
+        }
+
+        private static void writeLong(DataOutputStream out, Long value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) out.writeLong(value);
+        }
+
+        private static Long readLong(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readLong() : null;
+        }
+    }
+}
@@ -3,22 +3,29 @@ package com.backend.perfumes.services;
 import com.backend.perfumes.model.Category;
 import com.backend.perfumes.model.ModerationStatus;
 import com.backend.perfumes.repositories.CategoryRepository;
+import com.backend.perfumes.repositories.PerfumeRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final AutoModerationService autoModerationService;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final PerfumeRepository perfumeRepository;
 
-    public CategoryService(CategoryRepository categoryRepository, AutoModerationService autoModerationService) {
+    public CategoryService(CategoryRepository categoryRepository, AutoModerationService autoModerationService,
+                           CatalogSearchIndex catalogSearchIndex, PerfumeRepository perfumeRepository) {
         this.categoryRepository = categoryRepository;
         this.autoModerationService = autoModerationService;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.perfumeRepository = perfumeRepository;
     }
 
     public Category crearCategory(Category category) {
@@ -69,9 +76,16 @@ public class CategoryService {
 
     public Category actualizarCategory(Long id, Category categoryActualizada) {
         Category categoriaExistente = obtenerCategoryPorId(id);
+        boolean renombrada = !Objects.equals(categoriaExistente.getName(), categoryActualizada.getName());
         categoriaExistente.setName(categoryActualizada.getName());
         categoriaExistente.setDescription(categoryActualizada.getDescription());
         categoriaExistente.setImageUrl(categoryActualizada.getImageUrl());
-        return categoryRepository.save(categoriaExistente);
+        Category actualizada = categoryRepository.save(categoriaExistente);
+        if (renombrada) {
+            // El nombre de la categoría forma parte del documento de búsqueda de cada perfume
+            perfumeRepository.refreshSearchDocumentsByCategory(actualizada.getId());
+            catalogSearchIndex.onCategoryRenamed(actualizada.getId(), actualizada.getName());
+        }
+        return actualizada;
     }
 }
\ No newline at end of file
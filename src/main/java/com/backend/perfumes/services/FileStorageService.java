@@ -1,43 +1,174 @@
 package com.backend.perfumes.services;
 
+import com.backend.perfumes.exceptions.BusinessException;
+import com.backend.perfumes.model.StoredBlob;
+import com.backend.perfumes.repositories.StoredBlobRepository;
+import com.backend.perfumes.utils.ImageFormat;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Almacén de subidas direccionado por contenido. El fichero se copia a uno temporal mientras
+ * se calcula su SHA-256 y después se guarda como {@code <sha-256>.<ext>}, con la extensión
+ * del formato detectado: si ese contenido ya estaba, solo se suma una referencia en
+ * {@code stored_blobs} y el temporal se descarta.
+ * Las URLs anteriores ({@code <uuid>_<nombre>}) siguen sirviéndose y borrándose como antes.
+ */
 @Service
 public class FileStorageService {
 
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path uploadPath;
+    private final long maxImageBytes;
+    private final StoredBlobRepository storedBlobRepository;
+    private final ImageDerivativeService imageDerivativeService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Subir y borrar el mismo contenido a la vez no puede dejar una fila sin fichero ni al revés
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public FileStorageService(@Value("${file.upload-dir:uploads}") String uploadDir,
+                              StoredBlobRepository storedBlobRepository,
+                              ImageDerivativeService imageDerivativeService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.uploads.max-image-bytes:10485760}") long maxImageBytes) {
+        this.uploadPath = Paths.get(uploadDir);
+        this.maxImageBytes = maxImageBytes;
+        this.storedBlobRepository = storedBlobRepository;
+        this.imageDerivativeService = imageDerivativeService;
+        // Las referencias se confirman aunque quien sube esté dentro de otra transacción
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
 
     public String storeFile(MultipartFile file) throws IOException {
         if (file.isEmpty()) {
             throw new IOException("El archivo está vacío");
         }
+        try (InputStream in = file.getInputStream()) {
+            return storeStream(in);
+        }
+    }
 
-        Path uploadPath = Paths.get(uploadDir);
+    /**
+     * Guarda una imagen leyendo el flujo una sola vez con un búfer fijo: reconoce el formato
+     * por los primeros bytes, calcula el SHA-256 al vuelo y corta en cuanto se pasa de
+     * {@code app.uploads.max-image-bytes}. La memoria usada no depende del tamaño del fichero.
+     */
+    public String storeStream(InputStream in) throws IOException {
         if (!Files.exists(uploadPath)) {
             Files.createDirectories(uploadPath);
         }
 
-        String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-        Path filePath = uploadPath.resolve(fileName);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int headerLength = in.readNBytes(buffer, 0, ImageFormat.SIGNATURE_LENGTH);
+        if (headerLength == 0) {
+            throw new IOException("El archivo está vacío");
+        }
+        ImageFormat format = ImageFormat.detect(buffer, headerLength);
+        if (format == null) {
+            throw new BusinessException("Solo se permiten imágenes JPEG, PNG, GIF, WebP o BMP",
+                    HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+        }
+
+        Path temp = Files.createTempFile(uploadPath, ".upload", ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            long size = headerLength;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                sha256.update(buffer, 0, headerLength);
+                out.write(buffer, 0, headerLength);
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxImageBytes) {
+                        throw new BusinessException("La imagen supera el tamaño máximo de "
+                                + maxImageBytes / (1024 * 1024) + " MB", HttpStatus.PAYLOAD_TOO_LARGE);
+                    }
+                    sha256.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            String digest = HexFormat.of().formatHex(sha256.digest());
 
-        Files.copy(file.getInputStream(), filePath);
+            ReentrantLock lock = lockFor(digest);
+            lock.lock();
+            try {
+                Optional<String> existing = transactionTemplate.execute(status ->
+                        storedBlobRepository.incrementReferences(digest) > 0
+                                ? storedBlobRepository.findByDigest(digest).map(StoredBlob::getFileName)
+                                : Optional.empty());
+                if (existing != null && existing.isPresent()) {
+                    return "/uploads/" + existing.get();
+                }
 
-        return "/uploads/" + fileName;
+                String fileName = digest + "." + format.getExtension();
+                Files.move(temp, uploadPath.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+
+                StoredBlob blob = new StoredBlob();
+                blob.setDigest(digest);
+                blob.setFileName(fileName);
+                blob.setSize(size);
+                blob.setReferenceCount(1);
+                transactionTemplate.executeWithoutResult(status -> storedBlobRepository.save(blob));
+
+                imageDerivativeService.schedule(fileName);
+                return "/uploads/" + fileName;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
     }
 
+    /**
+     * Quita una referencia. El fichero y sus variantes solo se borran cuando no queda ninguna.
+     */
     public void deleteFile(String fileUrl) throws IOException {
         if (fileUrl != null && fileUrl.startsWith("/uploads/")) {
             String fileName = fileUrl.substring("/uploads/".length());
-            Path filePath = Paths.get(uploadDir).resolve(fileName);
-            Files.deleteIfExists(filePath);
+            Optional<StoredBlob> blob = storedBlobRepository.findByFileName(fileName);
+            if (blob.isEmpty()) {
+                deleteFromDisk(fileName);
+                return;
+            }
+
+            String digest = blob.get().getDigest();
+            ReentrantLock lock = lockFor(digest);
+            lock.lock();
+            try {
+                Boolean unreferenced = transactionTemplate.execute(status ->
+                        storedBlobRepository.decrementReferences(digest) > 0
+                                && storedBlobRepository.deleteUnreferenced(digest) > 0);
+                if (Boolean.TRUE.equals(unreferenced)) {
+                    deleteFromDisk(fileName);
+                }
+            } finally {
+                lock.unlock();
+            }
         }
     }
 
@@ -48,4 +179,22 @@ public class FileStorageService {
     public String getDefaultPerfumeImageUrl() {
         return "/uploads/default-perfume.jpg";
     }
-}
\ No newline at end of file
+
+    private void deleteFromDisk(String fileName) throws IOException {
+        Path filePath = uploadPath.resolve(fileName);
+        Files.deleteIfExists(filePath);
+        imageDerivativeService.delete(fileName);
+    }
+
+    private ReentrantLock lockFor(String digest) {
+        return locks[Math.floorMod(digest.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
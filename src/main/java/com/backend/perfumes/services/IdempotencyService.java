@@ -0,0 +1,150 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.dto.CheckoutRequestDTO;
+import com.backend.perfumes.dto.OrderResponseDTO;
+import com.backend.perfumes.exceptions.BusinessException;
+import com.backend.perfumes.model.IdempotencyRecord;
+import com.backend.perfumes.repositories.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Checkout idempotente: la primera solicitud con una Idempotency-Key crea la orden y guarda
+ * la respuesta en la misma transacción; los reintentos con la misma clave reciben esa
+ * respuesta sin volver a ejecutar el checkout. Los duplicados que llegan mientras la
+ * original sigue en curso esperan su resultado en lugar de competir por el stock.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    public record Result(OrderResponseDTO response, boolean replayed) {
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<OrderResponseDTO> future) {
+    }
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public Result execute(String username, String idempotencyKey, String requestHash,
+                          Supplier<OrderResponseDTO> checkout) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key inválida");
+        }
+
+        Optional<OrderResponseDTO> stored = findStored(username, idempotencyKey, requestHash);
+        if (stored.isPresent()) {
+            return new Result(stored.get(), true);
+        }
+
+        String slot = username + ":" + idempotencyKey;
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight existing = inFlight.putIfAbsent(slot, mine);
+        if (existing != null) {
+            checkSameRequest(existing.requestHash(), requestHash);
+            log.info("Checkout duplicado en curso para {} ({}), esperando el original", username, idempotencyKey);
+            return new Result(await(existing.future()), true);
+        }
+
+        try {
+            OrderResponseDTO response = checkout.get();
+            mine.future().complete(response);
+            return new Result(response, false);
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia guardó la misma clave primero: su transacción ganó y la nuestra se revirtió
+            Optional<OrderResponseDTO> winner = findStored(username, idempotencyKey, requestHash);
+            if (winner.isEmpty()) {
+                mine.future().completeExceptionally(e);
+                throw e;
+            }
+            mine.future().complete(winner.get());
+            return new Result(winner.get(), true);
+        } catch (RuntimeException e) {
+            mine.future().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(slot, mine);
+        }
+    }
+
+    /**
+     * Guarda la respuesta asociada a la clave. Debe llamarse dentro de la transacción del
+     * checkout para que la orden y su registro se confirmen (o reviertan) juntos.
+     */
+    public void saveRecord(String username, String idempotencyKey, String requestHash, OrderResponseDTO response) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setUsername(username);
+        record.setIdempotencyKey(idempotencyKey);
+        record.setRequestHash(requestHash);
+        record.setOrderId(response.getOrderId());
+        try {
+            record.setResponseBody(objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta del checkout", e);
+        }
+        idempotencyRecordRepository.saveAndFlush(record);
+    }
+
+    public String hash(CheckoutRequestDTO request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la solicitud", e);
+        }
+    }
+
+    private Optional<OrderResponseDTO> findStored(String username, String idempotencyKey, String requestHash) {
+        return idempotencyRecordRepository.findByUsernameAndIdempotencyKey(username, idempotencyKey)
+                .map(record -> {
+                    checkSameRequest(record.getRequestHash(), requestHash);
+                    try {
+                        return objectMapper.readValue(record.getResponseBody(), OrderResponseDTO.class);
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException("Respuesta almacenada ilegible", e);
+                    }
+                });
+    }
+
+    private void checkSameRequest(String original, String current) {
+        if (!original.equals(current)) {
+            throw new BusinessException("La Idempotency-Key ya se usó con una solicitud distinta",
+                    HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    private OrderResponseDTO await(CompletableFuture<OrderResponseDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
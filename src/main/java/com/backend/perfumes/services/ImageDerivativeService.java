@@ -0,0 +1,225 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.model.ImageVariant;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera las variantes {@link ImageVariant} de cada imagen subida como JPEG en
+ * {@code uploads/derivatives/<variante>/}. El trabajo se hace en un grupo pequeño de hilos
+ * con cola acotada, nunca en el hilo de la petición. Si una variante se pide antes de
+ * existir (imágenes anteriores, cola llena) se sirve el original y se encola su generación.
+ * Las imágenes que no se pueden reducir (formato que ImageIO no lee, fichero dañado o más
+ * de {@code app.images.max-pixels}) se recuerdan para no volver a intentarlo en cada petición.
+ */
+@Service
+@Slf4j
+public class ImageDerivativeService {
+
+    private static final String DERIVATIVES_DIR = "derivatives";
+
+    private final Path uploadPath;
+    private final float quality;
+    private final ThreadPoolExecutor executor;
+    private final long maxPixels;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+
+    public ImageDerivativeService(@Value("${file.upload-dir:uploads}") String uploadDir,
+                                  @Value("${app.images.derivative-quality:0.82}") float quality,
+                                  @Value("${app.images.workers:1}") int workers,
+                                  @Value("${app.images.queue-capacity:200}") int queueCapacity,
+                                  @Value("${app.images.max-pixels:25000000}") long maxPixels) {
+        this.uploadPath = Paths.get(uploadDir);
+        this.quality = quality;
+        this.maxPixels = maxPixels;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "image-derivatives-" + threadNumber.incrementAndGet()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public void schedule(String fileName) {
+        if (!pending.add(fileName)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    if (generate(fileName) == 0) {
+                        unsupported.add(fileName);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    unsupported.add(fileName);
+                    log.warn("No se pudieron generar las variantes de {}: {}", fileName, e.getMessage());
+                } finally {
+                    pending.remove(fileName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Se reintentará la próxima vez que alguien pida una variante
+            pending.remove(fileName);
+        }
+    }
+
+    /**
+     * Ruta de la variante si ya existe. Si no, encola su generación y devuelve {@code null}.
+     */
+    public Path resolve(String fileName, ImageVariant variant) {
+        Path derivative = derivativePath(fileName, variant);
+        if (Files.isReadable(derivative)) {
+            return derivative;
+        }
+        if (!unsupported.contains(fileName) && Files.isReadable(uploadPath.resolve(fileName))) {
+            schedule(fileName);
+        }
+        return null;
+    }
+
+    public void delete(String fileName) throws IOException {
+        unsupported.remove(fileName);
+        for (ImageVariant variant : ImageVariant.values()) {
+            Files.deleteIfExists(derivativePath(fileName, variant));
+        }
+    }
+
+    /**
+     * Escribe todas las variantes de una imagen. Devuelve cuántas se escribieron: cero si el
+     * formato no lo lee ImageIO (p. ej. WebP) o si la imagen supera el límite de píxeles, en
+     * cuyo caso se sigue sirviendo el original.
+     */
+    public int generate(String fileName) throws IOException {
+        BufferedImage original = readWithinLimit(uploadPath.resolve(fileName));
+        if (original == null) {
+            return 0;
+        }
+
+        int written = 0;
+        BufferedImage source = original;
+        // De mayor a menor: cada variante parte de la anterior, que ya está reducida
+        ImageVariant[] variants = ImageVariant.values();
+        for (int i = variants.length - 1; i >= 0; i--) {
+            source = scale(source, variants[i].getMaxSize());
+            writeJpeg(source, derivativePath(fileName, variants[i]));
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     * Decodifica la imagen solo si sus dimensiones, leídas de la cabecera, no pasan de
+     * {@code maxPixels}: un PNG de pocos MB puede declarar miles de millones de píxeles.
+     */
+    private BufferedImage readWithinLimit(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Imagen {} demasiado grande para generar variantes: {} píxeles", file.getFileName(), pixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Para pruebas: trabajos de generación terminados
+    long completedTasks() {
+        return executor.getCompletedTaskCount();
+    }
+
+    private Path derivativePath(String fileName, ImageVariant variant) {
+        return uploadPath.resolve(DERIVATIVES_DIR).resolve(variant.param()).resolve(fileName + ".jpg");
+    }
+
+    /**
+     * Reduce a la mitad mientras sobre más del doble y termina con un último paso bilineal:
+     * evita el aliasing de reducir de golpe sin el coste de un filtro de área. Siempre
+     * devuelve RGB opaco, el único modelo que admite el JPEG; la transparencia queda en blanco.
+     */
+    private static BufferedImage scale(BufferedImage image, int maxSize) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1.0, (double) maxSize / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage current = image;
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            width /= 2;
+            height /= 2;
+            current = draw(current, width, height);
+        }
+        if (current == image || width != targetWidth || height != targetHeight) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".derivative", ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+        // Quien sirve la variante nunca ve un fichero a medio escribir
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
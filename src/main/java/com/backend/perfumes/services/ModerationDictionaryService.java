@@ -0,0 +1,142 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.exceptions.BusinessException;
+import com.backend.perfumes.model.ModerationWord;
+import com.backend.perfumes.model.ModerationWordCategory;
+import com.backend.perfumes.repositories.ModerationWordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Diccionario de moderación persistido en {@code moderation_words}. Al arrancar siembra la
+ * tabla con las palabras del código si está vacía; después, cada cambio hecho por la API y
+ * cada cambio detectado en la tabla (otra instancia, edición directa) se compila y se
+ * publica en {@link AutoModerationService} sin detener las moderaciones en curso. Su runner va
+ * primero: quien modere al arrancar no debe hacerlo con el diccionario por defecto.
+ */
+@Service
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ModerationDictionaryService implements ApplicationRunner {
+
+    private final ModerationWordRepository moderationWordRepository;
+    private final AutoModerationService autoModerationService;
+
+    // Huella de la última versión publicada: número de palabras y última modificación
+    private volatile long publishedCount = -1;
+    private volatile LocalDateTime publishedUpdate;
+
+    public ModerationDictionaryService(ModerationWordRepository moderationWordRepository,
+                                       AutoModerationService autoModerationService) {
+        this.moderationWordRepository = moderationWordRepository;
+        this.autoModerationService = autoModerationService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (moderationWordRepository.count() == 0) {
+            List<ModerationWord> seed = AutoModerationService.defaultDictionary().entrySet().stream()
+                    .map(entry -> newWord(entry.getKey(), entry.getValue()))
+                    .toList();
+            moderationWordRepository.saveAll(seed);
+            log.info("Diccionario de moderación sembrado con {} palabras", seed.size());
+        }
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${app.moderation.dictionary-refresh-ms:60000}",
+            initialDelayString = "${app.moderation.dictionary-refresh-ms:60000}")
+    public void refreshIfChanged() {
+        long count = moderationWordRepository.count();
+        LocalDateTime lastUpdate = moderationWordRepository.findLastUpdate();
+        if (count != publishedCount || !Objects.equals(lastUpdate, publishedUpdate)) {
+            reload();
+        }
+    }
+
+    public synchronized int reload() {
+        long count = moderationWordRepository.count();
+        LocalDateTime lastUpdate = moderationWordRepository.findLastUpdate();
+
+        Map<String, ModerationWordCategory> dictionary = new LinkedHashMap<>();
+        for (ModerationWord word : moderationWordRepository.findAll()) {
+            dictionary.put(word.getWord(), word.getCategory());
+        }
+        autoModerationService.publishDictionary(dictionary);
+
+        publishedCount = count;
+        publishedUpdate = lastUpdate;
+        return dictionary.size();
+    }
+
+    public List<ModerationWord> getWords(ModerationWordCategory category) {
+        return category != null
+                ? moderationWordRepository.findByCategoryOrderByWordAsc(category)
+                : moderationWordRepository.findAllByOrderByWordAsc();
+    }
+
+    @Transactional
+    public ModerationWord saveWord(String word, ModerationWordCategory category) {
+        String normalized = normalize(word);
+        if (category == null) {
+            throw new BusinessException("La categoría es obligatoria");
+        }
+
+        ModerationWord entity = moderationWordRepository.findByWord(normalized)
+                .orElseGet(() -> newWord(normalized, null));
+        entity.setCategory(category);
+        ModerationWord saved = moderationWordRepository.save(entity);
+        reloadAfterCommit();
+        return saved;
+    }
+
+    @Transactional
+    public void deleteWord(String word) {
+        ModerationWord entity = moderationWordRepository.findByWord(normalize(word))
+                .orElseThrow(() -> new BusinessException("Palabra no encontrada", HttpStatus.NOT_FOUND));
+        moderationWordRepository.delete(entity);
+        reloadAfterCommit();
+    }
+
+    private void reloadAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+
+    private static String normalize(String word) {
+        if (word == null || word.isBlank()) {
+            throw new BusinessException("La palabra es obligatoria");
+        }
+        String normalized = word.trim().toLowerCase();
+        if (normalized.length() > 100) {
+            throw new BusinessException("La palabra no puede superar los 100 caracteres");
+        }
+        return normalized;
+    }
+
+    private static ModerationWord newWord(String word, ModerationWordCategory category) {
+        ModerationWord entity = new ModerationWord();
+        entity.setWord(word);
+        entity.setCategory(category);
+        return entity;
+    }
+}
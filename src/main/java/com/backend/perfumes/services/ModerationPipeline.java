@@ -0,0 +1,363 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.dto.ModerationDecision;
+import com.backend.perfumes.dto.ModerationResult;
+import com.backend.perfumes.model.Brand;
+import com.backend.perfumes.model.ModerationStatus;
+import com.backend.perfumes.model.Perfume;
+import com.backend.perfumes.repositories.BrandRepository;
+import com.backend.perfumes.repositories.PerfumeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Moderación automática fuera del hilo de la petición. Marcas y perfumes se guardan como
+ * {@code PENDING_REVIEW} sin moderador y entran, tras confirmar la transacción, en una cola
+ * acotada que atiende un grupo fijo de hilos. Cada hilo toma hasta
+ * {@code app.moderation.batch-size} elementos y los resuelve con una consulta y un lote de
+ * UPDATE. Si la cola está llena, quien publica modera él mismo: así la entrada se frena en
+ * lugar de acumular trabajo sin límite. Un lote que falla (p. ej. un error transitorio de la
+ * base) se reintenta pasados {@code app.moderation.retry-delay-ms}, hasta
+ * {@code app.moderation.max-retries} veces por elemento.
+ */
+@Service
+@Slf4j
+public class ModerationPipeline implements ApplicationRunner {
+
+    public static final String MODERATED_BY = "AUTO_MODERATOR";
+    public static final String QUEUED_REASON = "En cola de moderación automática";
+
+    public enum Kind { PERFUME, BRAND }
+
+    private record Task(Kind kind, Long id, long enqueuedAt, int attempts) {
+
+        Task(Kind kind, Long id, long enqueuedAt) {
+            this(kind, id, enqueuedAt, 0);
+        }
+
+        Task retry() {
+            return new Task(kind, id, enqueuedAt, attempts + 1);
+        }
+    }
+
+    private final PerfumeRepository perfumeRepository;
+    private final BrandRepository brandRepository;
+    private final AutoModerationService autoModerationService;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Task> queue;
+    private final int capacity;
+    private final int workers;
+    private final int batchSize;
+    private final int maxRetries;
+    private final Queue<Task> retries = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private final AtomicInteger peakQueueSize = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder latencyMsTotal = new LongAdder();
+
+    private volatile boolean running;
+    private ExecutorService workerPool;
+
+    public ModerationPipeline(PerfumeRepository perfumeRepository,
+                              BrandRepository brandRepository,
+                              AutoModerationService autoModerationService,
+                              CatalogSearchIndex catalogSearchIndex,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.moderation.queue-capacity:1000}") int capacity,
+                              @Value("${app.moderation.workers:2}") int workers,
+                              @Value("${app.moderation.batch-size:50}") int batchSize,
+                              @Value("${app.moderation.max-retries:3}") int maxRetries) {
+        this.perfumeRepository = perfumeRepository;
+        this.brandRepository = brandRepository;
+        this.autoModerationService = autoModerationService;
+        this.catalogSearchIndex = catalogSearchIndex;
+        // Se invoca también desde afterCommit, donde solo una transacción nueva es segura
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        start();
+    }
+
+    /**
+     * Recupera lo que quedó pendiente en la base. Corre después de todos los runners (el
+     * diccionario ya está publicado) y después de cargar el índice de catálogo: si no, la
+     * carga del snapshot borraría las altas que estas aprobaciones acaban de hacer.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void recoverOnStartup() {
+        Thread.ofVirtual().name("moderation-recovery").start(this::recoverQueued);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers,
+                runnable -> new Thread(runnable, "moderation-worker-" + threadNumber.incrementAndGet()));
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::workLoop);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (workerPool != null) {
+            // Lo que quede en cola sigue pendiente en la base y se recupera al arrancar
+            workerPool.shutdownNow();
+        }
+    }
+
+    public void markQueued(Perfume perfume) {
+        perfume.setModerationStatus(ModerationStatus.PENDING_REVIEW);
+        perfume.setRejectionReason(QUEUED_REASON);
+        perfume.setModerationDate(null);
+        perfume.setModeratedBy(null);
+    }
+
+    public void markQueued(Brand brand) {
+        brand.setModerationStatus(ModerationStatus.PENDING_REVIEW);
+        brand.setRejectionReason(QUEUED_REASON);
+        brand.setModerationDate(null);
+        brand.setModeratedBy(null);
+    }
+
+    /**
+     * Encola la moderación una vez confirmada la transacción actual, cuando la fila ya es
+     * visible para los hilos de moderación.
+     */
+    public void submit(Kind kind, Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(new Task(kind, id, System.currentTimeMillis()));
+                }
+            });
+        } else {
+            enqueue(new Task(kind, id, System.currentTimeMillis()));
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        long processedCount = processed.sum();
+        long batchCount = batches.sum();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("running", running);
+        metrics.put("queueSize", queue.size());
+        metrics.put("queueCapacity", capacity);
+        metrics.put("peakQueueSize", peakQueueSize.get());
+        metrics.put("workers", workers);
+        metrics.put("busyWorkers", busyWorkers.get());
+        metrics.put("submitted", submitted.sum());
+        metrics.put("processed", processedCount);
+        metrics.put("batches", batchCount);
+        metrics.put("averageBatchSize", batchCount == 0 ? 0 : (double) processedCount / batchCount);
+        metrics.put("callerRuns", callerRuns.sum());
+        metrics.put("retried", retried.sum());
+        metrics.put("awaitingRetry", retries.size());
+        metrics.put("failed", failed.sum());
+        metrics.put("averageLatencyMs", processedCount == 0 ? 0 : latencyMsTotal.sum() / processedCount);
+        return metrics;
+    }
+
+    private void enqueue(Task task) {
+        submitted.increment();
+        if (running && queue.offer(task)) {
+            peakQueueSize.accumulateAndGet(queue.size(), Math::max);
+            return;
+        }
+        callerRuns.increment();
+        process(List.of(task));
+    }
+
+    /**
+     * Devuelve a la cola los elementos de lotes fallidos. Si no caben, esperan a la
+     * siguiente pasada: reintentar no debe desplazar a lo recién publicado.
+     */
+    @Scheduled(fixedDelayString = "${app.moderation.retry-delay-ms:5000}")
+    public void retryFailed() {
+        Task task;
+        while (running && (task = retries.poll()) != null) {
+            if (!queue.offer(task)) {
+                retries.add(task);
+                return;
+            }
+        }
+    }
+
+    private void recoverQueued() {
+        List<Task> pending = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        brandRepository.findIdsAwaitingModeration(ModerationStatus.PENDING_REVIEW)
+                .forEach(id -> pending.add(new Task(Kind.BRAND, id, now)));
+        perfumeRepository.findIdsAwaitingModeration(ModerationStatus.PENDING_REVIEW)
+                .forEach(id -> pending.add(new Task(Kind.PERFUME, id, now)));
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        log.info("Moderación: {} elementos pendientes recuperados de la base", pending.size());
+        try {
+            for (Task task : pending) {
+                submitted.increment();
+                queue.put(task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void workLoop() {
+        List<Task> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            busyWorkers.incrementAndGet();
+            try {
+                process(batch);
+            } finally {
+                busyWorkers.decrementAndGet();
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Task> tasks) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                moderatePerfumes(idsOf(tasks, Kind.PERFUME));
+                moderateBrands(idsOf(tasks, Kind.BRAND));
+            });
+
+            long now = System.currentTimeMillis();
+            tasks.forEach(task -> latencyMsTotal.add(now - task.enqueuedAt()));
+            processed.add(tasks.size());
+            batches.increment();
+        } catch (RuntimeException e) {
+            log.error("Moderación: error procesando un lote de {} elementos: {}", tasks.size(), e.getMessage());
+            for (Task task : tasks) {
+                if (task.attempts() < maxRetries) {
+                    retried.increment();
+                    retries.add(task.retry());
+                } else {
+                    // Sigue pendiente en la base: lo recupera el próximo arranque o un administrador
+                    failed.increment();
+                    log.error("Moderación: se abandona {} {} tras {} reintentos", task.kind(), task.id(), maxRetries);
+                }
+            }
+        }
+    }
+
+    private void moderatePerfumes(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Perfume> perfumes = perfumeRepository.findForModerationByIdIn(ids).stream()
+                .filter(perfume -> isQueued(perfume.getModerationStatus(), perfume.getModeratedBy()))
+                .toList();
+
+        Map<Long, ModerationDecision> decisions = decide(perfumes, Perfume::getId, perfume ->
+                autoModerationService.moderatePerfume(perfume.getName(), perfume.getDescription(),
+                        perfume.getPrice(), perfume.getStock(), perfume.getImageUrl()));
+        if (decisions.isEmpty()) {
+            return;
+        }
+
+        Set<Long> applied = new HashSet<>(perfumeRepository.applyModerationBatch(
+                new ArrayList<>(decisions.values()), MODERATED_BY));
+        for (Perfume perfume : perfumes) {
+            if (applied.contains(perfume.getId())) {
+                // Entidad de solo lectura: el cambio no se vuelca, solo alimenta el índice del catálogo
+                perfume.setModerationStatus(decisions.get(perfume.getId()).status());
+                catalogSearchIndex.onPerfumeChanged(perfume);
+            }
+        }
+    }
+
+    private void moderateBrands(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Brand> brands = brandRepository.findForModerationByIdIn(ids).stream()
+                .filter(brand -> isQueued(brand.getModerationStatus(), brand.getModeratedBy()))
+                .toList();
+
+        Map<Long, ModerationDecision> decisions = decide(brands, Brand::getId, brand ->
+                autoModerationService.moderateBrand(brand.getName(), brand.getDescription(), brand.getImageUrl()));
+        if (!decisions.isEmpty()) {
+            brandRepository.applyModerationBatch(new ArrayList<>(decisions.values()), MODERATED_BY);
+        }
+    }
+
+    private static <E> Map<Long, ModerationDecision> decide(List<E> entities, Function<E, Long> id,
+                                                           Function<E, ModerationResult> moderate) {
+        Map<Long, ModerationDecision> decisions = new LinkedHashMap<>();
+        for (E entity : entities) {
+            decisions.put(id.apply(entity), ModerationDecision.of(id.apply(entity), moderate.apply(entity)));
+        }
+        return decisions;
+    }
+
+    // Un administrador pudo decidir mientras el elemento esperaba: su decisión prevalece
+    private static boolean isQueued(ModerationStatus status, String moderatedBy) {
+        return status == ModerationStatus.PENDING_REVIEW && moderatedBy == null;
+    }
+
+    private static List<Long> idsOf(List<Task> tasks, Kind kind) {
+        return tasks.stream()
+                .filter(task -> task.kind() == kind)
+                .map(Task::id)
+                .distinct()
+                .toList();
+    }
+}
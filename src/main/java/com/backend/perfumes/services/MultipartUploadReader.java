@@ -0,0 +1,109 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.exceptions.BusinessException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lee un {@code multipart/form-data} directamente del cuerpo de la petición, parte a parte y
+ * sin pasar por {@code MultipartFile}: el fichero va del socket a
+ * {@link FileStorageService#storeStream} con un búfer fijo, sin copia previa en memoria ni
+ * en el directorio temporal del servidor. Los demás campos se leen como texto acotado.
+ * Requiere {@code spring.servlet.multipart.resolve-lazily=true} para que nadie consuma el
+ * cuerpo antes.
+ */
+@Service
+public class MultipartUploadReader {
+
+    // Cabeceras de partes y campos de texto que acompañan al fichero
+    private static final long FORM_OVERHEAD_BYTES = 64 * 1024;
+    private static final int MAX_FIELD_BYTES = 16 * 1024;
+    private static final int MAX_PARTS = 10;
+
+    public record Upload(String fileUrl, String originalFilename, Map<String, String> fields) {
+    }
+
+    private final FileStorageService fileStorageService;
+    private final long maxImageBytes;
+
+    public MultipartUploadReader(FileStorageService fileStorageService,
+                                 @Value("${app.uploads.max-image-bytes:10485760}") long maxImageBytes) {
+        this.fileStorageService = fileStorageService;
+        this.maxImageBytes = maxImageBytes;
+    }
+
+    /**
+     * Guarda el fichero del campo {@code fileField} y devuelve su URL junto con los demás
+     * campos. Si algo falla después de guardarlo, se libera su referencia.
+     */
+    public Upload read(HttpServletRequest request, String fileField) throws IOException {
+        String contentType = request.getContentType();
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            throw new BusinessException("Se esperaba un formulario multipart/form-data");
+        }
+        // Rechazo temprano: si el tamaño declarado ya no cabe, no se lee nada
+        if (request.getContentLengthLong() > maxImageBytes + FORM_OVERHEAD_BYTES) {
+            throw new BusinessException("La imagen supera el tamaño máximo de "
+                    + maxImageBytes / (1024 * 1024) + " MB", HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+
+        FileUpload upload = new FileUpload();
+        upload.setFileCountMax(MAX_PARTS);
+
+        String fileUrl = null;
+        String originalFilename = null;
+        Map<String, String> fields = new LinkedHashMap<>();
+        try {
+            FileItemIterator items = upload.getItemIterator(new ServletRequestContext(request));
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                try (InputStream in = item.openStream()) {
+                    if (fileField.equals(item.getFieldName()) && !item.isFormField()) {
+                        if (fileUrl == null && item.getName() != null && !item.getName().isBlank()) {
+                            fileUrl = fileStorageService.storeStream(in);
+                            originalFilename = item.getName();
+                        }
+                    } else {
+                        // Incluye partes JSON enviadas como Blob, que llegan con nombre de fichero
+                        fields.put(item.getFieldName(), readField(in));
+                    }
+                }
+            }
+        } catch (FileUploadException e) {
+            release(fileUrl);
+            throw new BusinessException("Formulario multipart no válido: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            release(fileUrl);
+            throw e;
+        }
+        return new Upload(fileUrl, originalFilename, fields);
+    }
+
+    private static String readField(InputStream in) throws IOException {
+        byte[] value = in.readNBytes(MAX_FIELD_BYTES + 1);
+        if (value.length > MAX_FIELD_BYTES) {
+            throw new BusinessException("Campo de formulario demasiado grande", HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private void release(String fileUrl) throws IOException {
+        if (fileUrl != null) {
+            fileStorageService.deleteFile(fileUrl);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.repositories.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Retención de notificaciones: las leídas con más de {@code app.notifications.retention.days}
+ * días pasan por lotes a {@code notifications_archive}, particionada por mes de creación,
+ * y la tabla principal queda con lo reciente o pendiente de leer. Solo PostgreSQL.
+ */
+@Service
+@Slf4j
+public class NotificationRetentionService implements ApplicationRunner {
+
+    public record RetentionReport(long rowsMoved, long tookMs, LocalDateTime cutoff, LocalDateTime finishedAt) {
+    }
+
+    private static final String CREATE_ARCHIVE_SQL =
+            "CREATE TABLE IF NOT EXISTS notifications_archive (" +
+            "  id bigint NOT NULL, user_id bigint, title varchar(255), message varchar(255), type varchar(50), " +
+            "  order_id bigint, created_at timestamp(6) NOT NULL, archived_at timestamp(6) NOT NULL, " +
+            "  PRIMARY KEY (id, created_at)) PARTITION BY RANGE (created_at)";
+
+    private static final String CREATE_DEFAULT_PARTITION_SQL =
+            "CREATE TABLE IF NOT EXISTS notifications_archive_default PARTITION OF notifications_archive DEFAULT";
+
+    private static final String CREATE_ARCHIVE_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_notifications_archive_user_created " +
+            "ON notifications_archive (user_id, created_at, id)";
+
+    // Índice parcial: marcar como leídas y contar no leídas no recorren el historial ya leído
+    private static final String CREATE_UNREAD_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_notifications_user_unread ON notifications (user_id) WHERE is_read = false";
+
+    private final NotificationRepository notificationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int batchSize;
+
+    private volatile boolean archiveAvailable;
+    private volatile RetentionReport lastReport;
+
+    public NotificationRetentionService(NotificationRepository notificationRepository,
+                                        JdbcTemplate jdbcTemplate,
+                                        TransactionTemplate transactionTemplate,
+                                        @Value("${app.notifications.retention.days:90}") int retentionDays,
+                                        @Value("${app.notifications.retention.batch-size:5000}") int batchSize) {
+        this.notificationRepository = notificationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!isPostgres()) {
+            log.info("Base de datos distinta de PostgreSQL: se omite el archivo de notificaciones");
+            return;
+        }
+
+        jdbcTemplate.execute(CREATE_ARCHIVE_SQL);
+        jdbcTemplate.execute(CREATE_DEFAULT_PARTITION_SQL);
+        jdbcTemplate.execute(CREATE_ARCHIVE_INDEX_SQL);
+        jdbcTemplate.execute(CREATE_UNREAD_INDEX_SQL);
+        archiveAvailable = true;
+    }
+
+    public boolean isArchiveAvailable() {
+        return archiveAvailable;
+    }
+
+    public RetentionReport getLastReport() {
+        return lastReport;
+    }
+
+    @Scheduled(cron = "${app.notifications.retention.cron:0 0 4 * * *}")
+    public void scheduledCompaction() {
+        compact();
+    }
+
+    public synchronized RetentionReport compact() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        if (!archiveAvailable) {
+            return new RetentionReport(0, 0, cutoff, LocalDateTime.now());
+        }
+
+        long start = System.nanoTime();
+        LocalDateTime oldest = notificationRepository.findOldestReadBefore(cutoff);
+        if (oldest != null) {
+            createMonthlyPartitions(YearMonth.from(oldest), YearMonth.from(cutoff));
+        }
+
+        long moved = 0;
+        int batch;
+        do {
+            // Un lote por transacción: los bloqueos duran poco y un fallo no deshace lo ya movido
+            batch = transactionTemplate.execute(status -> notificationRepository.moveReadToArchive(cutoff, batchSize));
+            moved += batch;
+        } while (batch == batchSize);
+
+        long tookMs = (System.nanoTime() - start) / 1_000_000;
+        RetentionReport report = new RetentionReport(moved, tookMs, cutoff, LocalDateTime.now());
+        lastReport = report;
+        log.info("Retención de notificaciones: {} filas archivadas en {} ms (anteriores a {})", moved, tookMs, cutoff);
+        return report;
+    }
+
+    private void createMonthlyPartitions(YearMonth from, YearMonth to) {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            String sql = String.format(
+                    "CREATE TABLE IF NOT EXISTS notifications_archive_y%dm%02d PARTITION OF notifications_archive " +
+                    "FOR VALUES FROM ('%s') TO ('%s')",
+                    month.getYear(), month.getMonthValue(), month.atDay(1), month.plusMonths(1).atDay(1));
+            try {
+                jdbcTemplate.execute(sql);
+            } catch (DataAccessException e) {
+                // Si la partición por defecto ya tiene filas de ese mes, se siguen guardando allí
+                log.warn("No se pudo crear la partición {} del archivo: {}", month, e.getMessage());
+            }
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            return metaData.getDatabaseProductName();
+        });
+        return product != null && product.toLowerCase().contains("postgres");
+    }
+}
@@ -1,63 +1,90 @@
 // NotificationService.java
 package com.backend.perfumes.services;
 
+import com.backend.perfumes.dto.CursorPage;
 import com.backend.perfumes.model.*;
 import com.backend.perfumes.repositories.NotificationRepository;
+import com.backend.perfumes.repositories.OrderItemRepository;
 import com.backend.perfumes.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import com.backend.perfumes.utils.KeysetCursor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
 
+
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final NotificationStreamService notificationStreamService;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final NotificationRetentionService notificationRetentionService;
 
-    public void notifySellerNewOrder(Order order) {
-        try {
-            User seller = order.getItems().get(0).getPerfume().getUser();
-
-            Notification notification = new Notification();
-            notification.setUser(seller);
-            notification.setTitle("Nueva Orden Recibida");
-            notification.setMessage("Tienes una nueva orden #" + order.getOrderNumber() + " para preparar");
-            notification.setType(NotificationType.NEW_ORDER);
-            notification.setOrder(order);
+    public SseEmitter subscribe(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-            notificationRepository.save(notification);
-            log.info("Notificación de nueva orden enviada al vendedor: {}", seller.getUsername());
+        return notificationStreamService.subscribe(user.getId(), unreadNotificationCounter.get(user.getId()));
+    }
 
-        } catch (Exception e) {
-            log.error("Error enviando notificación de nueva orden: {}", e.getMessage());
+    /**
+     * Notifica a todos los vendedores con productos en la orden: una consulta para obtener
+     * los vendedores distintos y un solo lote de inserciones, sin importar el tamaño de la orden.
+     * Los errores se propagan para que {@link OutboxDispatcher} reintente el evento.
+     */
+    public void notifySellerNewOrder(Order order) {
+        List<Long> sellerIds = orderItemRepository.findDistinctSellerIdsByOrderId(order.getId());
+        if (sellerIds.isEmpty()) {
+            return;
         }
+
+        Notification notification = new Notification();
+        notification.setTitle("Nueva Orden Recibida");
+        notification.setMessage("Tienes una nueva orden #" + order.getOrderNumber() + " para preparar");
+        notification.setType(NotificationType.NEW_ORDER);
+        notification.setOrder(order);
+
+        unreadNotificationCounter.recordCreated(sellerIds);
+        notificationRepository.insertForUsers(sellerIds, notification);
+        pushNotification(sellerIds, notification);
+        log.info("Notificación de nueva orden {} enviada a {} vendedores", order.getOrderNumber(), sellerIds.size());
     }
 
     public void notifyOrderStatusUpdate(Order order, String username) {
-        try {
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-
-            Notification notification = new Notification();
-            notification.setUser(user);
-            notification.setTitle("Actualización de Orden");
-            notification.setMessage("Tu orden #" + order.getOrderNumber() + " ha sido actualizada a: " + order.getStatus());
-            notification.setType(NotificationType.ORDER_UPDATE);
-            notification.setOrder(order);
-
-            notificationRepository.save(notification);
-            log.info("Notificación de actualización de orden enviada al usuario: {}", username);
-
-        } catch (Exception e) {
-            log.error("Error enviando notificación de actualización de orden: {}", e.getMessage());
-        }
+        notifyOrderStatusUpdate(order, username, order.getStatus());
+    }
+
+    public void notifyOrderStatusUpdate(Order order, String username, OrderStatus status) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+
+        Notification notification = new Notification();
+        notification.setUser(user);
+        notification.setTitle("Actualización de Orden");
+        notification.setMessage("Tu orden #" + order.getOrderNumber() + " ha sido actualizada a: " + status);
+        notification.setType(NotificationType.ORDER_UPDATE);
+        notification.setOrder(order);
+
+        unreadNotificationCounter.recordCreated(List.of(user.getId()));
+        notificationRepository.save(notification);
+        pushNotification(List.of(user.getId()), notification);
+        log.info("Notificación de actualización de orden enviada al usuario: {}", username);
     }
 
     public Page<Notification> getUserNotifications(String username, Pageable pageable) {
@@ -67,6 +94,37 @@ public class NotificationService {
         return notificationRepository.findByUserOrderByCreatedAtDesc(user, pageable);
     }
 
+    public Page<Map<String, Object>> getArchivedNotifications(String username, Pageable pageable) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+
+        if (!notificationRetentionService.isArchiveAvailable()) {
+            return Page.empty(pageable);
+        }
+        return notificationRepository.findArchivedByUser(user.getId(), pageable);
+    }
+
+    public CursorPage<Notification> getUserNotificationsKeyset(String username, String cursor, int size,
+                                                              boolean includeTotal) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Notification> rows = position == null
+                ? notificationRepository.findKeysetFirstPage(user, limit)
+                : notificationRepository.findKeysetPageAfter(user, position.createdAt(), position.id(), limit);
+
+        CursorPage<Notification> page = CursorPage.of(rows, pageSize,
+                Notification::getCreatedAt, Notification::getId, notification -> notification);
+        if (includeTotal) {
+            page.setTotal(notificationRepository.countByUser(user));
+        }
+        return page;
+    }
+
     public List<Notification> getUnreadNotifications(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
@@ -78,7 +136,15 @@ public class NotificationService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-        return notificationRepository.countByUserAndIsReadFalse(user);
+        return unreadNotificationCounter.get(user.getId());
+    }
+
+    // El principal autenticado ya es la entidad User: con su id no hace falta ir a la base
+    public long getUnreadCount(UserDetails principal) {
+        if (principal instanceof User user && user.getId() != null) {
+            return unreadNotificationCounter.get(user.getId());
+        }
+        return getUnreadCount(principal.getUsername());
     }
 
     @Transactional
@@ -87,6 +153,8 @@ public class NotificationService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
         notificationRepository.markAllAsReadByUser(user);
+        unreadNotificationCounter.recordAllRead(user.getId());
+        pushUnreadCount(List.of(user.getId()));
         log.info("Todas las notificaciones marcadas como leídas para: {}", username);
     }
 
@@ -95,7 +163,26 @@ public class NotificationService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-        notificationRepository.markAsRead(notificationId, user);
+        unreadNotificationCounter.recordRead(user.getId(), notificationRepository.markAsRead(notificationId, user));
+        pushUnreadCount(List.of(user.getId()));
         log.info("Notificación {} marcada como leída para: {}", notificationId, username);
     }
-}
\ No newline at end of file
+
+    private void pushNotification(Collection<Long> userIds, Notification notification) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("title", notification.getTitle());
+        payload.put("message", notification.getMessage());
+        payload.put("type", notification.getType());
+        payload.put("createdAt", LocalDateTime.now());
+        if (notification.getOrder() != null) {
+            payload.put("orderNumber", notification.getOrder().getOrderNumber());
+        }
+        notificationStreamService.publishAfterCommit(userIds, "notification", payload);
+        pushUnreadCount(userIds);
+    }
+
+    private void pushUnreadCount(Collection<Long> userIds) {
+        notificationStreamService.publishAfterCommit(userIds, "unread-count",
+                userId -> Map.of("unreadCount", unreadNotificationCounter.get(userId)));
+    }
+}
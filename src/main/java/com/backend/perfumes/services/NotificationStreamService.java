@@ -0,0 +1,143 @@
+package com.backend.perfumes.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Registro de suscriptores SSE por usuario. Las conexiones se mantienen con el soporte
+ * asíncrono del servlet (ningún hilo queda bloqueado por un suscriptor inactivo) y los
+ * envíos salen en hilos virtuales, así un cliente lento no frena a quien publica.
+ */
+@Service
+@Slf4j
+public class NotificationStreamService {
+
+    private final Map<Long, Set<SseEmitter>> emittersByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final long emitterTimeoutMs;
+
+    public NotificationStreamService(@Value("${app.notifications.stream-timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    public SseEmitter subscribe(Long userId, long unreadCount) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        // Alta y baja se hacen dentro de compute para no perder conexiones en carrera
+        emittersByUser.compute(userId, (id, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.<SseEmitter>newKeySet();
+            set.add(emitter);
+            return set;
+        });
+        subscriberCount.incrementAndGet();
+
+        Runnable cleanup = () -> unregister(userId, emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(error -> cleanup.run());
+
+        send(userId, emitter, SseEmitter.event().name("unread-count").data(Map.of("unreadCount", unreadCount)));
+        return emitter;
+    }
+
+    public boolean isSubscribed(Long userId) {
+        return emittersByUser.containsKey(userId);
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public void publishAfterCommit(Collection<Long> userIds, String eventName, Object data) {
+        publishAfterCommit(userIds, eventName, userId -> data);
+    }
+
+    /**
+     * Envía un evento a todas las conexiones de los usuarios indicados una vez confirmada
+     * la transacción actual (o de inmediato si no hay transacción). El contenido de cada
+     * usuario se calcula en el hilo de envío y solo para quienes están conectados.
+     */
+    public void publishAfterCommit(Collection<Long> userIds, String eventName, Function<Long, Object> dataForUser) {
+        List<Long> recipients = userIds.stream().filter(this::isSubscribed).toList();
+        if (recipients.isEmpty()) {
+            return;
+        }
+        Runnable action = () -> recipients.forEach(userId -> publish(userId, eventName, dataForUser));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public void publish(Long userId, String eventName, Function<Long, Object> dataForUser) {
+        Set<SseEmitter> emitters = emittersByUser.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        sender.execute(() -> {
+            Object data = dataForUser.apply(userId);
+            for (SseEmitter emitter : emitters) {
+                send(userId, emitter, SseEmitter.event().name(eventName).data(data));
+            }
+        });
+    }
+
+    // Los proxies suelen cortar conexiones sin tráfico; el comentario mantiene viva la conexión
+    @Scheduled(fixedDelayString = "${app.notifications.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emittersByUser.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                sender.execute(() -> send(userId, emitter, SseEmitter.event().comment("ping")));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        emittersByUser.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        emittersByUser.clear();
+        sender.shutdown();
+    }
+
+    private void send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado: se descarta la conexión
+            unregister(userId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unregister(Long userId, SseEmitter emitter) {
+        emittersByUser.computeIfPresent(userId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                subscriberCount.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
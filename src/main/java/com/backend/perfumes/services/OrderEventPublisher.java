@@ -0,0 +1,38 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.model.Order;
+import com.backend.perfumes.model.OutboxEvent;
+import com.backend.perfumes.model.OutboxEventType;
+import com.backend.perfumes.repositories.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Registra eventos de órdenes en la tabla outbox dentro de la transacción del llamador.
+ * {@link OutboxDispatcher} los convierte después en notificaciones.
+ */
+@Service
+public class OrderEventPublisher {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    public OrderEventPublisher(OutboxEventRepository outboxEventRepository) {
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    public void orderPaid(Order order) {
+        publish(OutboxEventType.ORDER_PAID, order);
+    }
+
+    public void orderStatusChanged(Order order) {
+        publish(OutboxEventType.ORDER_STATUS_CHANGED, order);
+    }
+
+    private void publish(OutboxEventType type, Order order) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setOrderId(order.getId());
+        event.setOrderStatus(order.getStatus());
+        event.setRecipientUsername(order.getUser().getUsername());
+        outboxEventRepository.save(event);
+    }
+}
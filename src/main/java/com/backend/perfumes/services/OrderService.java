@@ -3,11 +3,13 @@ package com.backend.perfumes.services;
 import com.backend.perfumes.dto.*;
 import com.backend.perfumes.model.*;
 import com.backend.perfumes.repositories.*;
+import com.backend.perfumes.utils.KeysetCursor;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
@@ -15,8 +17,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,25 +30,38 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
 
-    private final NotificationService notificationService;
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final PaymentRepository paymentRepository;
     private final PerfumeRepository perfumeRepository;
     private final UserRepository userRepository;
     private final PaymentGatewayService paymentGatewayService;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final IdempotencyService idempotencyService;
+    private final OrderEventPublisher orderEventPublisher;
 
     private static final BigDecimal TAX_RATE = BigDecimal.valueOf(0.16); // 16% IVA
     private static final BigDecimal SHIPPING_COST = BigDecimal.valueOf(5.00);
 
     @Transactional
     public OrderResponseDTO createOrder(CheckoutRequestDTO checkoutRequest, String username) {
+        return createOrder(checkoutRequest, username, null, null);
+    }
+
+    /**
+     * Igual que {@link #createOrder(CheckoutRequestDTO, String)}, pero si llega una clave de
+     * idempotencia guarda la respuesta en la misma transacción que la orden.
+     */
+    @Transactional
+    public OrderResponseDTO createOrder(CheckoutRequestDTO checkoutRequest, String username,
+                                        String idempotencyKey, String requestHash) {
         log.info("Creando orden para usuario: {}", username);
 
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
         OrderCalculationResult calculation = calculateOrderTotals(checkoutRequest.getItems());
+        reserveStock(calculation.getItems());
 
         Order order = new Order();
         order.setOrderNumber(generateOrderNumber());
@@ -67,7 +86,11 @@ public class OrderService {
 
         createPaymentRecord(savedOrder, paymentResponse, checkoutRequest.getPaymentMethod());
 
-        return buildOrderResponse(savedOrder, paymentResponse);
+        OrderResponseDTO response = buildOrderResponse(savedOrder, paymentResponse);
+        if (idempotencyKey != null) {
+            idempotencyService.saveRecord(username, idempotencyKey, requestHash, response);
+        }
+        return response;
     }
 
     @Transactional
@@ -91,15 +114,8 @@ public class OrderService {
                 order.setStatus(OrderStatus.CONFIRMED);
                 orderRepository.save(order);
 
-                // Notificar al vendedor
-                if (notificationService != null) {
-                    notificationService.notifySellerNewOrder(order);
-                }
-
-                // Notificar al cliente
-                if (notificationService != null) {
-                    notificationService.notifyOrderStatusUpdate(order, order.getUser().getUsername());
-                }
+                // Las notificaciones al vendedor y al cliente salen por el outbox
+                orderEventPublisher.orderPaid(order);
 
                 log.info("Pago confirmado y orden {} actualizada a CONFIRMED", order.getOrderNumber());
             } else {
@@ -120,13 +136,14 @@ public class OrderService {
         BigDecimal subtotal = BigDecimal.ZERO;
         List<OrderItemCalculation> calculatedItems = new ArrayList<>();
 
-        for (CartItemDTO cartItem : cartItems) {
-            Perfume perfume = perfumeRepository.findById(cartItem.getPerfumeId())
-                    .orElseThrow(() -> new RuntimeException("Perfume no encontrado: " + cartItem.getPerfumeId()));
+        Set<Long> perfumeIds = cartItems.stream().map(CartItemDTO::getPerfumeId).collect(Collectors.toSet());
+        Map<Long, Perfume> perfumes = perfumeRepository.findAllById(perfumeIds).stream()
+                .collect(Collectors.toMap(Perfume::getId, Function.identity()));
 
-            if (perfume.getStock() < cartItem.getQuantity()) {
-                throw new RuntimeException("Stock insuficiente para: " + perfume.getName() +
-                        ". Stock disponible: " + perfume.getStock());
+        for (CartItemDTO cartItem : cartItems) {
+            Perfume perfume = perfumes.get(cartItem.getPerfumeId());
+            if (perfume == null) {
+                throw new RuntimeException("Perfume no encontrado: " + cartItem.getPerfumeId());
             }
 
             if (cartItem.getQuantity() <= 0) {
@@ -147,7 +164,30 @@ public class OrderService {
         return new OrderCalculationResult(subtotal, tax, shipping, total, calculatedItems);
     }
 
+    /**
+     * Descuenta el stock con un UPDATE condicional por perfume (stock >= cantidad), sin
+     * leer y reescribir el valor. Todas las líneas viajan en un solo lote JDBC, agrupadas
+     * y ordenadas por id para que dos checkouts concurrentes bloqueen en el mismo orden.
+     */
+    private void reserveStock(List<OrderItemCalculation> calculatedItems) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, Perfume> perfumes = new HashMap<>();
+        for (OrderItemCalculation calc : calculatedItems) {
+            quantities.merge(calc.getPerfume().getId(), calc.getQuantity(), Integer::sum);
+            perfumes.putIfAbsent(calc.getPerfume().getId(), calc.getPerfume());
+        }
+
+        List<Long> insufficient = perfumeRepository.decrementStockBatch(quantities);
+        if (!insufficient.isEmpty()) {
+            throw new RuntimeException("Stock insuficiente para: " + insufficient.stream()
+                    .map(id -> perfumes.get(id).getName())
+                    .collect(Collectors.joining(", ")));
+        }
+        quantities.forEach((id, quantity) -> catalogSearchIndex.onStockChanged(id, -quantity));
+    }
+
     private void createOrderItems(Order order, List<OrderItemCalculation> calculatedItems) {
+        List<OrderItem> items = new ArrayList<>(calculatedItems.size());
         for (OrderItemCalculation calc : calculatedItems) {
             OrderItem item = new OrderItem();
             item.setOrder(order);
@@ -156,16 +196,9 @@ public class OrderService {
 
             item.setUnitPrice(BigDecimal.valueOf(calc.getPerfume().getPrice()));
             item.setTotalPrice(calc.getTotalPrice());
-
-            orderItemRepository.save(item);
-
-            Perfume perfume = calc.getPerfume();
-            perfume.setStock(perfume.getStock() - calc.getQuantity());
-            perfumeRepository.save(perfume);
-
-            log.info("Stock actualizado para perfume {}: nuevo stock = {}",
-                    perfume.getName(), perfume.getStock());
+            items.add(item);
         }
+        orderItemRepository.insertBatch(items);
     }
 
     private void createPaymentRecord(Order order, PaymentResponseDTO paymentResponse, String paymentMethod) {
@@ -200,9 +233,7 @@ public class OrderService {
         order.setStatus(newStatus);
         Order updatedOrder = orderRepository.save(order);
 
-        if (notificationService != null) {
-            notificationService.notifyOrderStatusUpdate(updatedOrder, order.getUser().getUsername());
-        }
+        orderEventPublisher.orderStatusChanged(updatedOrder);
 
         log.info("Orden {} actualizada de {} a {} por {}",
                 order.getOrderNumber(), oldStatus, newStatus, username);
@@ -259,29 +290,49 @@ public class OrderService {
         Page<Order> orders = orderRepository.findByUsername(username, pageable);
 
         List<OrderResponseDTO> orderDTOs = orders.getContent().stream()
-                .map(order -> {
-                    OrderResponseDTO dto = new OrderResponseDTO();
-                    dto.setOrderId(order.getId());
-                    dto.setOrderNumber(order.getOrderNumber());
-                    dto.setStatus(order.getStatus().toString());
-                    dto.setSubtotal(order.getSubtotal());
-                    dto.setTax(order.getTax());
-                    dto.setShipping(order.getShipping());
-                    dto.setTotal(order.getTotal());
-                    dto.setCreatedAt(order.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-
-                    List<OrderItemResponseDTO> itemDTOs = order.getItems().stream()
-                            .map(this::convertToOrderItemResponseDTO)
-                            .collect(Collectors.toList());
-                    dto.setItems(itemDTOs);
-
-                    return dto;
-                })
+                .map(this::toOrderSummary)
                 .collect(Collectors.toList());
 
         return new PageImpl<>(orderDTOs, pageable, orders.getTotalElements());
     }
 
+    public CursorPage<OrderResponseDTO> getUserOrdersKeyset(String username, String cursor, int size,
+                                                            boolean includeTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Order> rows = position == null
+                ? orderRepository.findKeysetFirstPageByUsername(username, limit)
+                : orderRepository.findKeysetPageAfterByUsername(username, position.createdAt(), position.id(), limit);
+
+        CursorPage<OrderResponseDTO> page = CursorPage.of(rows, pageSize,
+                Order::getCreatedAt, Order::getId, this::toOrderSummary);
+        if (includeTotal) {
+            page.setTotal(orderRepository.countByUsername(username));
+        }
+        return page;
+    }
+
+    private OrderResponseDTO toOrderSummary(Order order) {
+        OrderResponseDTO dto = new OrderResponseDTO();
+        dto.setOrderId(order.getId());
+        dto.setOrderNumber(order.getOrderNumber());
+        dto.setStatus(order.getStatus().toString());
+        dto.setSubtotal(order.getSubtotal());
+        dto.setTax(order.getTax());
+        dto.setShipping(order.getShipping());
+        dto.setTotal(order.getTotal());
+        dto.setCreatedAt(order.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+
+        List<OrderItemResponseDTO> itemDTOs = order.getItems().stream()
+                .map(this::convertToOrderItemResponseDTO)
+                .collect(Collectors.toList());
+        dto.setItems(itemDTOs);
+
+        return dto;
+    }
+
     public OrderResponseDTO getOrderByNumber(String orderNumber, String username) {
         Order order = orderRepository.findByOrderNumber(orderNumber)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
@@ -307,11 +358,12 @@ public class OrderService {
             throw new RuntimeException("Solo se pueden cancelar órdenes pendientes");
         }
 
+        Map<Long, Integer> quantities = new HashMap<>();
         for (OrderItem item : order.getItems()) {
-            Perfume perfume = item.getPerfume();
-            perfume.setStock(perfume.getStock() + item.getQuantity());
-            perfumeRepository.save(perfume);
+            quantities.merge(item.getPerfume().getId(), item.getQuantity(), Integer::sum);
         }
+        perfumeRepository.incrementStockBatch(quantities);
+        quantities.forEach(catalogSearchIndex::onStockChanged);
 
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
@@ -335,6 +387,27 @@ public class OrderService {
         }
     }
 
+    public CursorPage<Order> getSellerOrdersKeyset(String username, String cursor, int size,
+                                                   OrderStatus status, boolean includeTotal) {
+        User seller = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Order> rows = position == null
+                ? orderRepository.findKeysetFirstPageBySeller(seller.getId(), status, limit)
+                : orderRepository.findKeysetPageAfterBySeller(seller.getId(), status,
+                        position.createdAt(), position.id(), limit);
+
+        CursorPage<Order> page = CursorPage.of(rows, pageSize, Order::getCreatedAt, Order::getId, order -> order);
+        if (includeTotal) {
+            page.setTotal(orderRepository.countBySeller(seller.getId(), status));
+        }
+        return page;
+    }
+
     public Order getSellerOrderDetail(Long orderId, String username) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
@@ -0,0 +1,139 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.model.Order;
+import com.backend.perfumes.model.OutboxEvent;
+import com.backend.perfumes.model.OutboxEventType;
+import com.backend.perfumes.model.OutboxStatus;
+import com.backend.perfumes.repositories.OrderRepository;
+import com.backend.perfumes.repositories.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Despacha en segundo plano los eventos de la tabla outbox: toma lotes de identificadores
+ * pendientes, carga sus órdenes en una sola consulta y genera las notificaciones. Cada evento
+ * se despacha en su propia transacción, así que uno que falla no revierte ni repite a los
+ * demás del lote; se reintenta en pasadas siguientes hasta {@code app.outbox.max-attempts}.
+ */
+@Service
+@Slf4j
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderRepository orderRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            OrderRepository orderRepository,
+                            NotificationService notificationService,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.outbox.batch-size:100}") int batchSize,
+                            @Value("${app.outbox.max-attempts:5}") int maxAttempts) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.orderRepository = orderRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void dispatchPending() {
+        // Avanza por id: lo que falla en esta pasada espera a la siguiente en lugar de repetirse ya
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = outboxEventRepository.findIdsByStatusAfter(OutboxStatus.PENDING, afterId,
+                    PageRequest.of(0, batchSize));
+            if (!ids.isEmpty()) {
+                dispatchBatch(ids);
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == batchSize);
+    }
+
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        int deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deleteProcessedBefore(OutboxStatus.SENT, LocalDateTime.now().minusDays(7)));
+        if (deleted > 0) {
+            log.info("Outbox: {} eventos enviados eliminados", deleted);
+        }
+    }
+
+    private void dispatchBatch(List<Long> ids) {
+        Map<Long, Order> orders = orderRepository.findAllById(
+                        outboxEventRepository.findAllById(ids).stream().map(OutboxEvent::getOrderId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        int sent = 0;
+        for (Long id : ids) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> dispatchOne(id, orders)))) {
+                    sent++;
+                }
+            } catch (RuntimeException e) {
+                // La transacción del evento ya se revirtió: el fallo se anota en otra nueva
+                transactionTemplate.executeWithoutResult(status -> recordFailure(id, e));
+            }
+        }
+        log.debug("Outbox: {} de {} eventos despachados", sent, ids.size());
+    }
+
+    private boolean dispatchOne(Long id, Map<Long, Order> orders) {
+        // Otra instancia pudo tomarlo o terminarlo desde que se leyeron los ids
+        OutboxEvent event = outboxEventRepository.lockIfStatus(id, OutboxStatus.PENDING).orElse(null);
+        if (event == null) {
+            return false;
+        }
+        Order order = orders.get(event.getOrderId());
+        if (order != null) {
+            dispatch(event, order);
+        }
+        event.setStatus(OutboxStatus.SENT);
+        event.setProcessedAt(LocalDateTime.now());
+        return true;
+    }
+
+    private void recordFailure(Long id, RuntimeException error) {
+        OutboxEvent event = outboxEventRepository.lockIfStatus(id, OutboxStatus.PENDING).orElse(null);
+        if (event == null) {
+            return;
+        }
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(truncate(error.getMessage()));
+        if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(OutboxStatus.FAILED);
+            event.setProcessedAt(LocalDateTime.now());
+        }
+        log.error("Outbox: error despachando evento {} (intento {}): {}", id, event.getAttempts(), error.getMessage());
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 255 ? message.substring(0, 255) : message;
+    }
+
+    private void dispatch(OutboxEvent event, Order order) {
+        if (event.getType() == OutboxEventType.ORDER_PAID) {
+            notificationService.notifySellerNewOrder(order);
+        }
+        notificationService.notifyOrderStatusUpdate(order, event.getRecipientUsername(), event.getOrderStatus());
+    }
+}
@@ -1,14 +1,18 @@
 package com.backend.perfumes.services;
 
-import com.backend.perfumes.dto.ModerationResult;
+import com.backend.perfumes.dto.CursorPage;
 import com.backend.perfumes.dto.PerfumeDTO;
 import com.backend.perfumes.model.*;
 import com.backend.perfumes.repositories.BrandRepository;
 import com.backend.perfumes.repositories.CategoryRepository;
 import com.backend.perfumes.repositories.PerfumeRepository;
 import com.backend.perfumes.repositories.UserRepository;
+import com.backend.perfumes.utils.KeysetCursor;
+import com.backend.perfumes.utils.RelevanceCursor;
+import com.backend.perfumes.utils.SearchTextNormalizer;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
@@ -16,6 +20,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PerfumeService {
@@ -24,18 +30,21 @@ public class PerfumeService {
     private final BrandRepository brandRepository;
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
-    private final AutoModerationService autoModerationService;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final ModerationPipeline moderationPipeline;
 
     public PerfumeService(PerfumeRepository perfumeRepository,
                           BrandRepository brandRepository,
                           CategoryRepository categoryRepository,
                           UserRepository userRepository,
-                          AutoModerationService autoModerationService) {
+                          CatalogSearchIndex catalogSearchIndex,
+                          ModerationPipeline moderationPipeline) {
         this.perfumeRepository = perfumeRepository;
         this.brandRepository = brandRepository;
         this.categoryRepository = categoryRepository;
         this.userRepository = userRepository;
-        this.autoModerationService = autoModerationService;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.moderationPipeline = moderationPipeline;
     }
 
     @Transactional
@@ -67,20 +76,109 @@ public class PerfumeService {
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado: " + username));
         perfume.setUser(user);
 
-        ModerationResult result = autoModerationService.moderatePerfume(
-                perfume.getName(), perfume.getDescription(), perfume.getPrice(),
-                perfume.getStock(), perfume.getImageUrl());
+        moderationPipeline.markQueued(perfume);
+        perfume.setSearchDocument(SearchTextNormalizer.document(perfume));
 
-        perfume.setModerationStatus(result.getStatus());
-        perfume.setRejectionReason(result.getReason());
-        perfume.setModerationDate(LocalDateTime.now());
-        perfume.setModeratedBy("AUTO_MODERATOR");
+        Perfume guardado = perfumeRepository.save(perfume);
+        catalogSearchIndex.onPerfumeChanged(guardado);
+        moderationPipeline.submit(ModerationPipeline.Kind.PERFUME, guardado.getId());
+        return guardado;
+    }
 
-        return perfumeRepository.save(perfume);
+    /**
+     * Catálogo público. Lo responde el índice en memoria salvo que todavía se esté
+     * construyendo o que el cliente pida un orden explícito.
+     */
+    public Page<PerfumeDTO> buscarCatalogo(Pageable pageable, String filtro) {
+        if (catalogSearchIndex.isReady() && pageable.getSort().isUnsorted()) {
+            return catalogSearchIndex.search(filtro, pageable);
+        }
+        return listarPerfume(pageable, filtro).map(PerfumeDTO::fromEntity);
     }
 
     public Page<Perfume> listarPerfume(Pageable pageable, String filtro) {
-        return perfumeRepository.findByModerationStatusAndFiltro(ModerationStatus.APPROVED, filtro, pageable);
+        String tsQuery = SearchTextNormalizer.toPrefixTsQuery(filtro);
+        if (tsQuery == null) {
+            return perfumeRepository.findByModerationStatus(ModerationStatus.APPROVED, pageable);
+        }
+        // El orden lo da la relevancia; la paginación se respeta pero se ignora el sort del cliente
+        Pageable porRelevancia = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Page<Long> ids = perfumeRepository.searchFullText(ModerationStatus.APPROVED.name(), tsQuery, porRelevancia);
+        Map<Long, Perfume> porId = perfumeRepository.findByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Perfume::getId, Function.identity()));
+        return ids.map(porId::get);
+    }
+
+    /**
+     * Catálogo público paginado por keyset sobre (createdAt, id): el costo de cada página
+     * no depende de su profundidad. Con filtro, el orden y los resultados son los de la
+     * búsqueda sin cursor (relevancia y luego id) y la posición va en un {@link RelevanceCursor}.
+     * El total solo se calcula si se pide.
+     */
+    public CursorPage<PerfumeDTO> listarPerfumeKeyset(String cursor, int size, String filtro, boolean incluirTotal) {
+        int tamano = CursorPage.clampSize(size);
+        String tsQuery = SearchTextNormalizer.toPrefixTsQuery(filtro);
+        if (tsQuery != null) {
+            return buscarPorRelevanciaKeyset(cursor, tamano, filtro, tsQuery, incluirTotal);
+        }
+
+        KeysetCursor posicion = KeysetCursor.decode(cursor);
+        Pageable limite = PageRequest.of(0, tamano + 1);
+
+        List<Perfume> filas = posicion == null
+                ? perfumeRepository.findKeysetFirstPage(ModerationStatus.APPROVED, limite)
+                : perfumeRepository.findKeysetPageAfter(ModerationStatus.APPROVED,
+                        posicion.createdAt(), posicion.id(), limite);
+
+        CursorPage<PerfumeDTO> pagina = CursorPage.of(filas, tamano,
+                Perfume::getCreatedAt, Perfume::getId, PerfumeDTO::fromEntity);
+
+        if (incluirTotal) {
+            pagina.setTotal(catalogSearchIndex.isReady()
+                    ? catalogSearchIndex.size()
+                    : perfumeRepository.countByModerationStatusAndFiltro(ModerationStatus.APPROVED, null));
+        }
+        return pagina;
+    }
+
+    private CursorPage<PerfumeDTO> buscarPorRelevanciaKeyset(String cursor, int size, String filtro, String tsQuery,
+                                                             boolean incluirTotal) {
+        RelevanceCursor posicion = RelevanceCursor.decode(cursor);
+        // Un cursor del índice solo vale contra el índice; el de la base, contra la base
+        boolean usarIndice = posicion != null ? posicion.fromIndex() : catalogSearchIndex.isReady();
+        if (usarIndice && !catalogSearchIndex.isReady()) {
+            throw new IllegalArgumentException("Cursor caducado, vuelve a la primera página");
+        }
+
+        CursorPage<PerfumeDTO> pagina;
+        if (usarIndice) {
+            List<CatalogSearchIndex.Hit> hits = posicion == null
+                    ? catalogSearchIndex.searchAfter(filtro, 0, null, size + 1)
+                    : catalogSearchIndex.searchAfter(filtro, (int) posicion.score(), posicion.id(), size + 1);
+            pagina = CursorPage.of(hits, size,
+                    hit -> new RelevanceCursor(true, hit.score(), hit.perfume().getId()).encode(),
+                    CatalogSearchIndex.Hit::perfume);
+        } else {
+            String status = ModerationStatus.APPROVED.name();
+            List<Object[]> filas = posicion == null
+                    ? perfumeRepository.searchFullTextKeysetFirstPage(status, tsQuery, size + 1)
+                    : perfumeRepository.searchFullTextKeysetPageAfter(status, tsQuery, posicion.score(),
+                            posicion.id(), size + 1);
+            Map<Long, Perfume> porId = perfumeRepository.findByIdIn(
+                            filas.stream().map(fila -> ((Number) fila[0]).longValue()).toList()).stream()
+                    .collect(Collectors.toMap(Perfume::getId, Function.identity()));
+            pagina = CursorPage.of(filas, size,
+                    fila -> new RelevanceCursor(false, ((Number) fila[1]).doubleValue(),
+                            ((Number) fila[0]).longValue()).encode(),
+                    fila -> PerfumeDTO.fromEntity(porId.get(((Number) fila[0]).longValue())));
+        }
+
+        if (incluirTotal) {
+            pagina.setTotal(usarIndice
+                    ? catalogSearchIndex.count(filtro)
+                    : perfumeRepository.countFullText(ModerationStatus.APPROVED.name(), tsQuery));
+        }
+        return pagina;
     }
 
     public Page<Perfume> listarPerfumePorUsuario(String username, Pageable pageable, String filtro) {
@@ -111,6 +209,14 @@ public class PerfumeService {
         return perfumeRepository.findByBrandIdAndModerationStatus(brandId, ModerationStatus.APPROVED);
     }
 
+    public PerfumeDTO obtenerPerfumePublicoDto(Long id) {
+        if (catalogSearchIndex.isReady()) {
+            return catalogSearchIndex.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Perfume no encontrado o no está aprobado"));
+        }
+        return PerfumeDTO.fromEntity(obtenerPerfumePublico(id));
+    }
+
     public Perfume obtenerPerfumePublico(Long id) {
         return perfumeRepository.findByIdAndModerationStatus(id, ModerationStatus.APPROVED)
                 .orElseThrow(() -> new RuntimeException("Perfume no encontrado o no está aprobado"));
@@ -145,16 +251,13 @@ public class PerfumeService {
             existente.setImageUrl(dto.getImageUrl());
         }
 
-        ModerationResult result = autoModerationService.moderatePerfume(
-                existente.getName(), existente.getDescription(), existente.getPrice(),
-                existente.getStock(), existente.getImageUrl());
-
-        existente.setModerationStatus(result.getStatus());
-        existente.setRejectionReason(result.getReason());
-        existente.setModerationDate(LocalDateTime.now());
-        existente.setModeratedBy("AUTO_MODERATOR");
+        moderationPipeline.markQueued(existente);
+        existente.setSearchDocument(SearchTextNormalizer.document(existente));
 
-        return perfumeRepository.save(existente);
+        Perfume actualizado = perfumeRepository.save(existente);
+        catalogSearchIndex.onPerfumeChanged(actualizado);
+        moderationPipeline.submit(ModerationPipeline.Kind.PERFUME, actualizado.getId());
+        return actualizado;
     }
 
     @Transactional
@@ -170,6 +273,7 @@ public class PerfumeService {
         }
 
         perfumeRepository.delete(perfume);
+        catalogSearchIndex.onPerfumeDeleted(id);
     }
 
     public Perfume aprobarPerfume(Long id, String adminUsername) {
@@ -179,7 +283,9 @@ public class PerfumeService {
         perfume.setRejectionReason(null);
         perfume.setModerationDate(LocalDateTime.now());
         perfume.setModeratedBy(adminUsername);
-        return perfumeRepository.save(perfume);
+        Perfume guardado = perfumeRepository.save(perfume);
+        catalogSearchIndex.onPerfumeChanged(guardado);
+        return guardado;
     }
 
     public Perfume rechazarPerfume(Long id, String motivo, String adminUsername) {
@@ -189,7 +295,9 @@ public class PerfumeService {
         perfume.setRejectionReason(motivo);
         perfume.setModerationDate(LocalDateTime.now());
         perfume.setModeratedBy(adminUsername);
-        return perfumeRepository.save(perfume);
+        Perfume guardado = perfumeRepository.save(perfume);
+        catalogSearchIndex.onPerfumeChanged(guardado);
+        return guardado;
     }
 
     public List<Perfume> obtenerPerfumesPendientes() {
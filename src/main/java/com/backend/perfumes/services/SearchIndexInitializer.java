@@ -0,0 +1,77 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.model.Perfume;
+import com.backend.perfumes.repositories.PerfumeRepository;
+import com.backend.perfumes.utils.SearchTextNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Prepara la búsqueda de texto completo del catálogo: crea el índice GIN sobre
+ * el documento de búsqueda y rellena el documento de los perfumes que aún no lo tienen.
+ */
+@Component
+@Slf4j
+public class SearchIndexInitializer implements ApplicationRunner {
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private static final String CREATE_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_perfumes_search_document ON perfumes " +
+            "USING GIN (to_tsvector('spanish', coalesce(search_document, '')))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PerfumeRepository perfumeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public SearchIndexInitializer(JdbcTemplate jdbcTemplate,
+                                  PerfumeRepository perfumeRepository,
+                                  TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.perfumeRepository = perfumeRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!isPostgres()) {
+            log.info("Base de datos distinta de PostgreSQL: se omite el índice de texto completo");
+            return;
+        }
+
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+
+        long total = 0;
+        int actualizados;
+        do {
+            actualizados = transactionTemplate.execute(status -> {
+                Slice<Perfume> pendientes = perfumeRepository.findBySearchDocumentIsNull(
+                        PageRequest.of(0, BACKFILL_BATCH_SIZE));
+                for (Perfume perfume : pendientes) {
+                    perfume.setSearchDocument(SearchTextNormalizer.document(perfume));
+                }
+                return pendientes.getNumberOfElements();
+            });
+            total += actualizados;
+        } while (actualizados == BACKFILL_BATCH_SIZE);
+
+        log.info("Índice de búsqueda listo. Documentos generados: {}", total);
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            return metaData.getDatabaseProductName();
+        });
+        return product != null && product.toLowerCase().contains("postgres");
+    }
+}
@@ -0,0 +1,172 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.repositories.NotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Contadores de notificaciones no leídas por usuario. Un contador ausente o expirado se
+ * reconstruye desde la base de datos; las altas y lecturas lo actualizan al confirmar la
+ * transacción. Si una escritura coincide con otra o con una reconstrucción del mismo
+ * usuario, el contador se invalida en lugar de arriesgar un valor incorrecto.
+ */
+@Service
+public class UnreadNotificationCounter {
+
+    private static final long UNKNOWN = -1;
+
+    private static final class Counter {
+        long value = UNKNOWN;
+        long loadedAt;
+        long version;
+        int inFlight;
+    }
+
+    private final NotificationRepository notificationRepository;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final int maxSize;
+
+    public UnreadNotificationCounter(NotificationRepository notificationRepository,
+                                     @Value("${app.notifications.unread-cache.ttl-seconds:600}") long ttlSeconds,
+                                     @Value("${app.notifications.unread-cache.max-size:100000}") int maxSize) {
+        this.notificationRepository = notificationRepository;
+        this.ttlMs = ttlSeconds * 1000;
+        this.maxSize = maxSize;
+    }
+
+    public long get(Long userId) {
+        long now = System.currentTimeMillis();
+        Counter counter = counter(userId);
+        long stamp;
+        synchronized (counter) {
+            if (counter.value != UNKNOWN && now - counter.loadedAt < ttlMs) {
+                return counter.value;
+            }
+            stamp = counter.inFlight == 0 ? counter.version : UNKNOWN;
+        }
+
+        long value = notificationRepository.countByUserIdAndIsReadFalse(userId);
+
+        synchronized (counter) {
+            // Solo se guarda si ninguna escritura empezó o terminó mientras se contaba
+            if (stamp != UNKNOWN && counter.inFlight == 0 && counter.version == stamp) {
+                counter.value = value;
+                counter.loadedAt = now;
+            }
+        }
+        return value;
+    }
+
+    public void recordCreated(Collection<Long> userIds) {
+        apply(userIds, value -> value + 1);
+    }
+
+    public void recordRead(Long userId, int changed) {
+        if (changed > 0) {
+            apply(List.of(userId), value -> Math.max(0, value - changed));
+        }
+    }
+
+    public void recordAllRead(Long userId) {
+        apply(List.of(userId), value -> 0);
+    }
+
+    public void invalidate(Long userId) {
+        Counter counter = counters.get(userId);
+        if (counter != null) {
+            synchronized (counter) {
+                counter.value = UNKNOWN;
+                counter.version++;
+            }
+        }
+    }
+
+    public void clear() {
+        counters.values().forEach(counter -> {
+            synchronized (counter) {
+                counter.value = UNKNOWN;
+                counter.version++;
+            }
+        });
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    private void apply(Collection<Long> userIds, LongUnaryOperator update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Sin transacción la escritura ya está confirmada: basta con forzar la reconstrucción
+            userIds.forEach(this::invalidate);
+            return;
+        }
+
+        Map<Counter, Long> started = new LinkedHashMap<>();
+        for (Long userId : userIds.stream().distinct().toList()) {
+            while (true) {
+                Counter counter = counter(userId);
+                synchronized (counter) {
+                    // Si lo desalojaron entre la búsqueda y el bloqueo se reintenta con el vigente
+                    if (counters.get(userId) == counter) {
+                        counter.inFlight++;
+                        started.put(counter, counter.version);
+                        break;
+                    }
+                }
+            }
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                started.forEach((counter, version) -> {
+                    synchronized (counter) {
+                        counter.inFlight--;
+                        boolean alone = counter.inFlight == 0 && counter.version == version;
+                        if (status == STATUS_COMMITTED && alone && counter.value != UNKNOWN) {
+                            counter.value = update.applyAsLong(counter.value);
+                        } else if (status == STATUS_COMMITTED || !alone) {
+                            counter.value = UNKNOWN;
+                        }
+                        counter.version++;
+                    }
+                });
+            }
+        });
+    }
+
+    private Counter counter(Long userId) {
+        Counter counter = counters.get(userId);
+        if (counter != null) {
+            return counter;
+        }
+        if (counters.size() >= maxSize) {
+            evict();
+        }
+        return counters.computeIfAbsent(userId, id -> new Counter());
+    }
+
+    private void evict() {
+        Iterator<Counter> values = counters.values().iterator();
+        while (counters.size() >= maxSize && values.hasNext()) {
+            Counter counter = values.next();
+            synchronized (counter) {
+                // Un contador con escrituras pendientes no se descarta: perdería su estado
+                if (counter.inFlight == 0) {
+                    values.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.backend.perfumes.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Metadatos de los ficheros servidos desde {@code uploads/}: tipo de contenido, tamaño,
+ * fecha y un ETag fuerte calculado del contenido. Se precalculan al arrancar y después solo
+ * se comprueba con un {@code stat} que el fichero no haya cambiado; si cambió (o es nuevo),
+ * se recalculan. Los ficheros direccionados por contenido toman el ETag de su propio nombre.
+ */
+@Service
+@Slf4j
+public class UploadMetadataIndex implements ApplicationRunner {
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("([0-9a-f]{64})(\\.[a-z0-9]{1,8})?");
+    private static final Map<String, String> IMAGE_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "jfif", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp",
+            "bmp", "image/bmp",
+            "avif", "image/avif",
+            "svg", "image/svg+xml"
+    );
+
+    public record FileMetadata(Path path, String contentType, long length, long lastModified,
+                               String etag, boolean contentAddressed) {
+    }
+
+    private final Path uploadPath;
+    private final Map<Path, FileMetadata> entries = new ConcurrentHashMap<>();
+
+    public UploadMetadataIndex(@Value("${file.upload-dir:uploads}") String uploadDir) {
+        this.uploadPath = Paths.get(uploadDir);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread.ofVirtual().name("upload-metadata-warmup").start(this::warmUp);
+    }
+
+    /**
+     * Metadatos vigentes del fichero, o {@code null} si no existe.
+     */
+    public FileMetadata lookup(Path path) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            entries.remove(path);
+            return null;
+        }
+        if (!attributes.isRegularFile()) {
+            return null;
+        }
+
+        FileMetadata cached = entries.get(path);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (cached != null && cached.length() == attributes.size() && cached.lastModified() == lastModified) {
+            return cached;
+        }
+
+        FileMetadata metadata = compute(path, attributes.size(), lastModified);
+        entries.put(path, metadata);
+        return metadata;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void warmUp() {
+        if (!Files.isDirectory(uploadPath)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try (Stream<Path> files = Files.list(uploadPath)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file) && !file.getFileName().toString().startsWith(".")) {
+                    lookup(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo precalcular el índice de uploads: {}", e.getMessage());
+        }
+        log.info("Índice de uploads: {} ficheros en {} ms", entries.size(), System.currentTimeMillis() - start);
+    }
+
+    private static FileMetadata compute(Path path, long length, long lastModified) throws IOException {
+        String fileName = path.getFileName().toString();
+        var contentAddressed = CONTENT_ADDRESSED.matcher(fileName);
+        boolean addressed = contentAddressed.matches();
+        String digest = addressed ? contentAddressed.group(1) : sha256(path);
+        return new FileMetadata(path, contentTypeOf(fileName), length, lastModified, "\"" + digest + "\"", addressed);
+    }
+
+    private static String contentTypeOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot >= 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        String type = IMAGE_TYPES.get(extension);
+        if (type != null) {
+            return type;
+        }
+        return MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+    }
+
+    private static String sha256(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
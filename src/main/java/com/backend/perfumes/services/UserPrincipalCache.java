@@ -0,0 +1,86 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché acotada de usuarios autenticados por el filtro JWT. Cada entrada expira tras
+ * {@code app.security.principal-cache.ttl-seconds}; los cambios de rol, correo, estado o
+ * la eliminación de la cuenta la invalidan de inmediato desde UserService y AuthService.
+ */
+@Service
+public class UserPrincipalCache {
+
+    private record Entry(UserDetails user, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    private final UserDetailService userDetailService;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final int maxSize;
+
+    public UserPrincipalCache(UserDetailService userDetailService,
+                              @Value("${app.security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                              @Value("${app.security.principal-cache.max-size:10000}") int maxSize) {
+        this.userDetailService = userDetailService;
+        this.ttlMs = ttlSeconds * 1000;
+        this.maxSize = maxSize;
+    }
+
+    public UserDetails load(String username) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null && !entry.isExpired(now)) {
+            return entry.user();
+        }
+
+        UserDetails user = userDetailService.loadUserByUsername(username);
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(username, new Entry(user, now + ttlMs));
+        return user;
+    }
+
+    public void invalidate(User user) {
+        if (user == null) {
+            return;
+        }
+        // El filtro carga por username, pero UserDetailService también acepta el correo
+        invalidate(user.getUsername());
+        invalidate(user.getEmail());
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            entries.remove(username);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.isExpired(now));
+
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.backend.perfumes.services;
 
+import com.backend.perfumes.model.Role;
 import com.backend.perfumes.model.User;
 import com.backend.perfumes.repositories.UserRepository;
 
@@ -19,18 +20,21 @@ public class UserService {
     private final JwtService  jwtService;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCache userPrincipalCache;
     private final int otpExpiryMinutes = 10;
 
 
     public UserService(UserRepository userRepository,
                        JwtService jwtService,
                        EmailService emailService,
-                       PasswordEncoder passwordEncoder
+                       PasswordEncoder passwordEncoder,
+                       UserPrincipalCache userPrincipalCache
     ) {
         this.userRepository = userRepository;
         this.jwtService = jwtService;
         this.emailService = emailService;
         this.passwordEncoder = passwordEncoder;
+        this.userPrincipalCache = userPrincipalCache;
 
     }
 
@@ -88,14 +92,39 @@ public class UserService {
             throw new RuntimeException("Código inválido");
         }
 
+        String emailAnterior = user.getEmail();
         user.setEmail(user.getPendingEmail());
         clearEmailUpdateFields(user);
 
         userRepository.save(user);
+        userPrincipalCache.invalidate(user);
+        userPrincipalCache.invalidate(emailAnterior);
         return "Correo actualizado correctamente.";
     }
 
 
+    public String changeRole(Long userId, Role role) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+
+        user.setRole(role);
+        userRepository.save(user);
+        userPrincipalCache.invalidate(user);
+        return "Rol actualizado correctamente.";
+    }
+
+
+    public String changeActive(Long userId, boolean active) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+
+        user.setActive(active);
+        userRepository.save(user);
+        userPrincipalCache.invalidate(user);
+        return active ? "Usuario activado." : "Usuario desactivado.";
+    }
+
+
     private void clearEmailUpdateFields(User user) {
         user.setPendingEmail(null);
         user.setEmailUpdateCode(null);
@@ -119,7 +148,7 @@ public class UserService {
 
 
         userRepository.delete(user);
-
+        userPrincipalCache.invalidate(user);
 
         return "Usuario eliminado con exito";
 
@@ -0,0 +1,62 @@
+package com.backend.perfumes.utils;
+
+import org.springframework.http.HttpRange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tramo de bytes de una cabecera {@code Range}, con ambos extremos incluidos como en
+ * {@code Content-Range}.
+ */
+public record ByteRange(long start, long end) {
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public String contentRange(long totalLength) {
+        return "bytes " + start + "-" + end + "/" + totalLength;
+    }
+
+    /**
+     * Tramos satisfacibles de la cabecera para un fichero de {@code length} bytes.
+     * Devuelve {@code null} si hay que servir el fichero entero (sin cabecera, mal formada, o
+     * pidiendo en total más bytes que el propio fichero) y una lista vacía si ningún tramo es
+     * satisfacible (416).
+     */
+    public static List<ByteRange> parse(String header, long length) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+
+        List<HttpRange> requested;
+        try {
+            requested = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>(requested.size());
+        long total = 0;
+        for (HttpRange range : requested) {
+            long start;
+            long end;
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                // Empieza después del final del fichero: se descarta este tramo
+                continue;
+            }
+            if (start > end) {
+                continue;
+            }
+            ranges.add(new ByteRange(start, end));
+            total += end - start + 1;
+        }
+
+        // Tramos solapados que suman más que el fichero: más barato mandarlo una vez
+        return total > length ? null : ranges;
+    }
+}
@@ -0,0 +1,63 @@
+package com.backend.perfumes.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * Comprobaciones de texto de la moderación automática con expresiones compiladas una sola vez.
+ * URLs, correos y teléfonos se buscan con una única alternancia, y solo cuando un recorrido
+ * previo del texto encuentra algo que podría empezar una de ellas: {@code ://}, una arroba o
+ * nueve dígitos seguidos. Una descripción normal se descarta sin pasar por el motor de regex.
+ */
+public final class ContentPatterns {
+
+    private static final Pattern URL_OR_CONTACT = Pattern.compile(
+            "https?://[^\\s]+"
+                    + "|\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b"
+                    + "|\\b\\d{9,15}\\b");
+
+    private static final Pattern IMAGE_URL = Pattern.compile(".*\\.(jpg|jpeg|png|gif|bmp|webp)(\\?.*)?$");
+
+    private static final int MIN_PHONE_DIGITS = 9;
+
+    private ContentPatterns() {
+    }
+
+    public static boolean containsUrlsOrContacts(CharSequence text) {
+        if (text == null || !mayContainUrlOrContact(text)) {
+            return false;
+        }
+        return URL_OR_CONTACT.matcher(text).find();
+    }
+
+    public static boolean isValidImageUrl(String url) {
+        if (url == null || url.trim().isEmpty()) return false;
+
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            return false;
+        }
+        return IMAGE_URL.matcher(url.toLowerCase()).matches();
+    }
+
+    // Condición necesaria de cualquiera de las tres alternativas: si falla, la regex tampoco encontraría nada
+    private static boolean mayContainUrlOrContact(CharSequence text) {
+        int digits = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits >= MIN_PHONE_DIGITS) {
+                    return true;
+                }
+                continue;
+            }
+            digits = 0;
+            if (c == '@') {
+                return true;
+            }
+            if (c == ':' && i + 2 < length && text.charAt(i + 1) == '/' && text.charAt(i + 2) == '/') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
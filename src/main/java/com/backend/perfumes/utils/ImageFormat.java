@@ -0,0 +1,69 @@
+package com.backend.perfumes.utils;
+
+/**
+ * Formatos de imagen aceptados en las subidas, reconocidos por sus primeros bytes y no por la
+ * extensión ni por el {@code Content-Type} que declara el cliente.
+ */
+public enum ImageFormat {
+    JPEG("jpg", "image/jpeg"),
+    PNG("png", "image/png"),
+    GIF("gif", "image/gif"),
+    WEBP("webp", "image/webp"),
+    BMP("bmp", "image/bmp");
+
+    /** Bytes necesarios para reconocer cualquiera de los formatos. */
+    public static final int SIGNATURE_LENGTH = 12;
+
+    private final String extension;
+    private final String contentType;
+
+    ImageFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Formato de los primeros {@code length} bytes de {@code header}, o {@code null} si no es
+     * ninguna imagen aceptada.
+     */
+    public static ImageFormat detect(byte[] header, int length) {
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return JPEG;
+        }
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return PNG;
+        }
+        if (startsWith(header, length, 'G', 'I', 'F', '8') && length >= 6
+                && (header[4] == '7' || header[4] == '9') && header[5] == 'a') {
+            return GIF;
+        }
+        if (startsWith(header, length, 'R', 'I', 'F', 'F') && length >= 12
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return WEBP;
+        }
+        if (startsWith(header, length, 'B', 'M')) {
+            return BMP;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,222 @@
+package com.backend.perfumes.utils;
+
+import java.util.*;
+
+/**
+ * Autómata Aho-Corasick que busca a la vez todas las palabras de un diccionario,
+ * sin distinguir mayúsculas. Se compila una vez y recorre cada texto en una sola
+ * pasada, sin copiarlo ni pasarlo a minúsculas, sea cual sea el tamaño del diccionario.
+ * Es inmutable: para cambiar el diccionario se compila uno nuevo.
+ *
+ * @param <T> dato asociado a cada palabra (por ejemplo, su categoría)
+ */
+public final class MultiPatternMatcher<T> {
+
+    public record Match<T>(String word, T value, int field, int start, int end) {
+    }
+
+    private static final int ROOT = 0;
+    private static final int LATIN1 = 256;
+
+    private final String[] words;
+    private final List<T> values;
+
+    // Transiciones del trie en formato compacto: las del nodo n son [edgeStart[n], edgeStart[n + 1])
+    private final int[] edgeStart;
+    private final char[] edgeChar;
+    private final int[] edgeTarget;
+
+    private final int[] failure;
+    private final int[] wordAt;     // palabra que termina en el nodo, o -1
+    private final int[] outputLink; // siguiente nodo por sufijo en el que termina una palabra, o -1
+
+    // La mayoría de los pasos vuelven a la raíz: sus transiciones Latin-1 van en tabla directa
+    private final int[] rootTable;
+
+    private MultiPatternMatcher(String[] words, List<T> values, int[] edgeStart, char[] edgeChar,
+                                int[] edgeTarget, int[] failure, int[] wordAt, int[] outputLink) {
+        this.words = words;
+        this.values = values;
+        this.edgeStart = edgeStart;
+        this.edgeChar = edgeChar;
+        this.edgeTarget = edgeTarget;
+        this.failure = failure;
+        this.wordAt = wordAt;
+        this.outputLink = outputLink;
+        this.rootTable = new int[LATIN1];
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            if (edgeChar[e] < LATIN1) {
+                rootTable[edgeChar[e]] = edgeTarget[e];
+            }
+        }
+    }
+
+    public static MultiPatternMatcher<String> compile(Collection<String> words) {
+        Map<String, String> dictionary = new LinkedHashMap<>();
+        words.forEach(word -> dictionary.put(word, word));
+        return compile(dictionary);
+    }
+
+    /**
+     * Compila el diccionario palabra → valor. Las palabras vacías se ignoran y, si dos
+     * coinciden sin distinguir mayúsculas, se queda la primera.
+     */
+    public static <T> MultiPatternMatcher<T> compile(Map<String, T> dictionary) {
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        children.add(new HashMap<>());
+        terminal.add(-1);
+
+        List<String> words = new ArrayList<>();
+        List<T> values = new ArrayList<>();
+        for (Map.Entry<String, T> entry : dictionary.entrySet()) {
+            String word = entry.getKey();
+            if (word == null || word.isEmpty()) {
+                continue;
+            }
+            StringBuilder folded = new StringBuilder(word.length());
+            int node = ROOT;
+            for (int i = 0; i < word.length(); i++) {
+                char c = Character.toLowerCase(word.charAt(i));
+                folded.append(c);
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    terminal.add(-1);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            if (terminal.get(node) == -1) {
+                terminal.set(node, words.size());
+                words.add(folded.toString());
+                values.add(entry.getValue());
+            }
+        }
+
+        int nodes = children.size();
+        int[] edgeStart = new int[nodes + 1];
+        for (int n = 0; n < nodes; n++) {
+            edgeStart[n + 1] = edgeStart[n] + children.get(n).size();
+        }
+        char[] edgeChar = new char[edgeStart[nodes]];
+        int[] edgeTarget = new int[edgeStart[nodes]];
+        for (int n = 0; n < nodes; n++) {
+            int pos = edgeStart[n];
+            for (Map.Entry<Character, Integer> edge : new TreeMap<>(children.get(n)).entrySet()) {
+                edgeChar[pos] = edge.getKey();
+                edgeTarget[pos++] = edge.getValue();
+            }
+        }
+
+        int[] wordAt = new int[nodes];
+        for (int n = 0; n < nodes; n++) {
+            wordAt[n] = terminal.get(n);
+        }
+
+        // Enlaces de fallo por anchura: el fallo de un nodo siempre está a menor profundidad
+        int[] failure = new int[nodes];
+        int[] outputLink = new int[nodes];
+        Arrays.fill(outputLink, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            failure[edgeTarget[e]] = ROOT;
+            queue.add(edgeTarget[e]);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                int child = edgeTarget[e];
+                int fallback = failure[node];
+                int target;
+                while ((target = step(edgeStart, edgeChar, edgeTarget, fallback, edgeChar[e])) == -1
+                        && fallback != ROOT) {
+                    fallback = failure[fallback];
+                }
+                failure[child] = target == -1 ? ROOT : target;
+                outputLink[child] = wordAt[failure[child]] != -1 ? failure[child] : outputLink[failure[child]];
+                queue.add(child);
+            }
+        }
+
+        return new MultiPatternMatcher<>(words.toArray(new String[0]), values,
+                edgeStart, edgeChar, edgeTarget, failure, wordAt, outputLink);
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * Todas las apariciones (incluidas las solapadas) en los textos indicados, en orden de
+     * aparición. {@link Match#field()} es la posición del texto; los nulos se saltan.
+     */
+    public List<Match<T>> findAll(CharSequence... texts) {
+        List<Match<T>> matches = new ArrayList<>();
+        for (int field = 0; field < texts.length; field++) {
+            CharSequence text = texts[field];
+            if (text == null) {
+                continue;
+            }
+            int node = ROOT;
+            for (int i = 0; i < text.length(); i++) {
+                node = next(node, Character.toLowerCase(text.charAt(i)));
+                for (int out = wordAt[node] != -1 ? node : outputLink[node]; out != -1; out = outputLink[out]) {
+                    int word = wordAt[out];
+                    matches.add(new Match<>(words[word], values.get(word), field,
+                            i + 1 - words[word].length(), i + 1));
+                }
+            }
+        }
+        return matches;
+    }
+
+    public boolean containsAny(CharSequence... texts) {
+        for (CharSequence text : texts) {
+            if (text == null) {
+                continue;
+            }
+            int node = ROOT;
+            for (int i = 0; i < text.length(); i++) {
+                node = next(node, Character.toLowerCase(text.charAt(i)));
+                if (wordAt[node] != -1 || outputLink[node] != -1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int next(int node, char c) {
+        while (node != ROOT) {
+            int target = step(edgeStart, edgeChar, edgeTarget, node, c);
+            if (target != -1) {
+                return target;
+            }
+            node = failure[node];
+        }
+        if (c < LATIN1) {
+            return rootTable[c];
+        }
+        int target = step(edgeStart, edgeChar, edgeTarget, ROOT, c);
+        return target == -1 ? ROOT : target;
+    }
+
+    private static int step(int[] edgeStart, char[] edgeChar, int[] edgeTarget, int node, char c) {
+        int low = edgeStart[node];
+        int high = edgeStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char found = edgeChar[mid];
+            if (found < c) {
+                low = mid + 1;
+            } else if (found > c) {
+                high = mid - 1;
+            } else {
+                return edgeTarget[mid];
+            }
+        }
+        return -1;
+    }
+}
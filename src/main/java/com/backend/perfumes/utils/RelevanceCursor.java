@@ -0,0 +1,37 @@
+package com.backend.perfumes.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición de una página de búsqueda ordenada por relevancia: la última (score, id)
+ * entregada. {@code fromIndex} indica si la puntuación es la del índice en memoria o el
+ * {@code ts_rank} de la base, que no son comparables entre sí.
+ */
+public record RelevanceCursor(boolean fromIndex, double score, Long id) {
+
+    private static final String PREFIX = "r";
+
+    public String encode() {
+        String raw = PREFIX + "|" + (fromIndex ? "i" : "d") + "|" + score + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Devuelve null para el cursor vacío (primera página).
+     */
+    public static RelevanceCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 4 || !PREFIX.equals(parts[0]) || !("i".equals(parts[1]) || "d".equals(parts[1]))) {
+                throw new IllegalArgumentException();
+            }
+            return new RelevanceCursor("i".equals(parts[1]), Double.parseDouble(parts[2]), Long.parseLong(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.backend.perfumes.utils;
+
+import com.backend.perfumes.model.Perfume;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class SearchTextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    /**
+     * Pasa el texto a minúsculas, elimina tildes y diéresis (á → a, ñ → n)
+     * y deja solo letras y dígitos separados por un espacio.
+     */
+    public static String fold(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD);
+        String withoutMarks = DIACRITICS.matcher(decomposed).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(withoutMarks).replaceAll(" ").trim();
+    }
+
+    public static List<String> tokens(String text) {
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        if (folded.isEmpty()) {
+            return tokens;
+        }
+        for (String token : folded.split(" ")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Documento de búsqueda de un perfume: nombre, descripción, marca, categoría y género.
+     */
+    public static String document(Perfume perfume) {
+        return document(perfume.getName(), perfume.getDescription(),
+                perfume.getBrand() != null ? perfume.getBrand().getName() : null,
+                perfume.getCategory() != null ? perfume.getCategory().getName() : null,
+                perfume.getGenre() != null ? perfume.getGenre().name() : null);
+    }
+
+    public static String document(String name, String description, String brandName, String categoryName,
+                                  String genre) {
+        StringBuilder sb = new StringBuilder();
+        append(sb, name);
+        append(sb, description);
+        append(sb, brandName);
+        append(sb, categoryName);
+        append(sb, genre);
+        return sb.toString();
+    }
+
+    /**
+     * Consulta tsquery con coincidencia por prefijo ("dior sauv" → "dior:* & sauv:*").
+     * Los tokens ya vienen limitados a [a-z0-9], por lo que no pueden inyectar operadores.
+     */
+    public static String toPrefixTsQuery(String filtro) {
+        List<String> tokens = tokens(filtro);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        return String.join(" & ", tokens.stream().map(t -> t + ":*").toList());
+    }
+
+    private static void append(StringBuilder sb, String value) {
+        String folded = fold(value);
+        if (folded.isEmpty()) {
+            return;
+        }
+        if (!sb.isEmpty()) {
+            sb.append(' ');
+        }
+        sb.append(folded);
+    }
+}
@@ -0,0 +1,183 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.dto.ModerationDecision;
+import com.backend.perfumes.dto.PerfumeDTO;
+import com.backend.perfumes.model.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Cada perfume tiene marca, categoría y vendedor distintos: sin fetch join serían 1 + 3N consultas
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PerfumeRepositoryTest {
+
+    private static final int PERFUMES = 3;
+
+    @Autowired
+    private PerfumeRepository perfumeRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private Long primeraMarcaId;
+    private Long primerPerfumeId;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PERFUMES; i++) {
+            User vendedor = entityManager.persist(
+                    new User("Vendedor", "Prueba", "vendedor" + i + "@perfumes.com", "123", Role.VENDEDOR));
+
+            Brand brand = new Brand();
+            brand.setName("Marca " + i);
+            brand.setModerationStatus(ModerationStatus.APPROVED);
+            brand.setUser(vendedor);
+            entityManager.persist(brand);
+
+            Category category = new Category();
+            category.setName("Categoría " + i);
+            category.setDescription("Descripción " + i);
+            entityManager.persist(category);
+
+            Perfume perfume = new Perfume();
+            perfume.setName("Perfume " + i);
+            perfume.setDescription("Aroma de prueba");
+            perfume.setPrice(50.0);
+            perfume.setStock(10);
+            perfume.setSizeMl(100);
+            perfume.setGenre(Genre.Unisex);
+            perfume.setModerationStatus(ModerationStatus.APPROVED);
+            perfume.setBrand(brand);
+            perfume.setCategory(category);
+            perfume.setUser(vendedor);
+            entityManager.persist(perfume);
+
+            if (i == 0) {
+                primeraMarcaId = brand.getId();
+                primerPerfumeId = perfume.getId();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void catalogoPaginadoCargaRelacionesEnUnaConsulta() {
+        // Página incompleta: Spring Data no necesita la consulta de conteo
+        Page<Perfume> pagina = perfumeRepository.findByModerationStatus(
+                ModerationStatus.APPROVED, PageRequest.of(0, 20));
+        List<PerfumeDTO> dtos = pagina.map(PerfumeDTO::fromEntity).getContent();
+
+        assertEquals(PERFUMES, dtos.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void catalogoPaginadoConConteoUsaDosConsultas() {
+        Page<Perfume> pagina = perfumeRepository.findByModerationStatus(
+                ModerationStatus.APPROVED, PageRequest.of(0, 2));
+        pagina.map(PerfumeDTO::fromEntity).getContent();
+
+        assertEquals(PERFUMES, pagina.getTotalElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void catalogoConFiltroCargaRelacionesEnUnaConsulta() {
+        Page<Perfume> pagina = perfumeRepository.findByModerationStatusAndFiltro(
+                ModerationStatus.APPROVED, "Perfume", PageRequest.of(0, 20));
+        pagina.map(PerfumeDTO::fromEntity).getContent();
+
+        assertEquals(PERFUMES, pagina.getNumberOfElements());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void catalogoKeysetCargaRelacionesEnUnaConsulta() {
+        List<Perfume> filas = perfumeRepository.findKeysetFirstPage(
+                ModerationStatus.APPROVED, PageRequest.of(0, 21));
+        filas.forEach(PerfumeDTO::fromEntity);
+
+        assertEquals(PERFUMES, filas.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void detallePublicoCargaRelacionesEnUnaConsulta() {
+        Perfume perfume = perfumeRepository.findByIdAndModerationStatus(primerPerfumeId, ModerationStatus.APPROVED)
+                .orElseThrow();
+        PerfumeDTO dto = PerfumeDTO.fromEntity(perfume);
+
+        assertEquals("Marca 0", dto.getBrandName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void perfumesPublicosDeMarcaCarganRelacionesEnUnaConsulta() {
+        List<Perfume> perfumes = perfumeRepository.findByBrandIdAndModerationStatus(
+                primeraMarcaId, ModerationStatus.APPROVED);
+        perfumes.forEach(PerfumeDTO::fromEntity);
+
+        assertEquals(1, perfumes.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void busquedaPorIdsCargaRelacionesEnUnaConsulta() {
+        List<Perfume> perfumes = perfumeRepository.findByIdIn(List.of(primerPerfumeId));
+        perfumes.forEach(PerfumeDTO::fromEntity);
+
+        assertEquals(1, perfumes.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void renombrarMarcaRegeneraElDocumentoDeSusPerfumes() {
+        Brand marca = entityManager.find(Brand.class, primeraMarcaId);
+        marca.setName("Maison Étoile");
+        entityManager.flush();
+
+        assertEquals(1, perfumeRepository.refreshSearchDocumentsByBrand(primeraMarcaId));
+        entityManager.clear();
+
+        assertEquals("perfume 0 aroma de prueba maison etoile categoria 0 unisex",
+                perfumeRepository.findById(primerPerfumeId).orElseThrow().getSearchDocument());
+        assertEquals(1, perfumeRepository.findAll().stream().filter(p -> p.getSearchDocument() != null).count());
+    }
+
+    @Test
+    void moderarEnLoteAvanzaUpdatedAtParaElIndice() {
+        LocalDateTime antes = LocalDateTime.now().minusDays(1);
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE perfumes SET updated_at = :antes WHERE id = :id")
+                .setParameter("antes", antes)
+                .setParameter("id", primerPerfumeId)
+                .executeUpdate();
+
+        assertEquals(List.of(primerPerfumeId), perfumeRepository.applyRemoderationBatch(
+                List.of(new ModerationDecision(primerPerfumeId, ModerationStatus.REJECTED, "Palabra prohibida")),
+                "AUTO_MODERATOR"));
+        entityManager.clear();
+
+        Perfume perfume = perfumeRepository.findById(primerPerfumeId).orElseThrow();
+        assertEquals(ModerationStatus.REJECTED, perfume.getModerationStatus());
+        assertTrue(perfume.getUpdatedAt().isAfter(antes.plusHours(1)));
+    }
+}
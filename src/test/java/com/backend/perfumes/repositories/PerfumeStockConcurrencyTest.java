@@ -0,0 +1,83 @@
+package com.backend.perfumes.repositories;
+
+import com.backend.perfumes.model.ModerationStatus;
+import com.backend.perfumes.model.Perfume;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Sin transacción de prueba: cada hilo confirma su propio UPDATE como en un checkout real
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PerfumeStockConcurrencyTest {
+
+    private static final int STOCK_INICIAL = 50;
+    private static final int HILOS = 16;
+    private static final int INTENTOS_POR_HILO = 20;
+
+    @Autowired
+    private PerfumeRepository perfumeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        perfumeRepository.deleteAll();
+    }
+
+    @Test
+    void checkoutsConcurrentesNuncaDejanStockNegativo() throws Exception {
+        Perfume perfume = new Perfume();
+        perfume.setName("Perfume concurrido");
+        perfume.setPrice(50.0);
+        perfume.setStock(STOCK_INICIAL);
+        perfume.setModerationStatus(ModerationStatus.APPROVED);
+        Long perfumeId = perfumeRepository.save(perfume).getId();
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        AtomicInteger reservados = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+                    int cantidad = 1 + (i % 3);
+                    List<Long> sinStock = tx.execute(status ->
+                            perfumeRepository.decrementStockBatch(Map.of(perfumeId, cantidad)));
+                    if (sinStock != null && sinStock.isEmpty()) {
+                        reservados.addAndGet(cantidad);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int stockFinal = perfumeRepository.findById(perfumeId).orElseThrow().getStock();
+        assertTrue(stockFinal >= 0, "El stock nunca debe quedar negativo");
+        assertEquals(STOCK_INICIAL, stockFinal + reservados.get(), "Cada unidad reservada debe descontarse una sola vez");
+    }
+}
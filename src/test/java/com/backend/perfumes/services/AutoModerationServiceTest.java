@@ -0,0 +1,69 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.dto.ModerationResult;
+import com.backend.perfumes.model.ModerationStatus;
+import com.backend.perfumes.model.ModerationWordCategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutoModerationServiceTest {
+
+    private static final String DESCRIPCION = "Fragancia floral con notas de jazmín y vainilla";
+
+    private final AutoModerationService moderationService = new AutoModerationService();
+
+    @Test
+    void aplicaElDiccionarioPublicadoSinReiniciar() {
+        assertEquals(ModerationStatus.APPROVED, moderar("Aroma Lunar").getStatus());
+
+        moderationService.publishDictionary(Map.of("lunar", ModerationWordCategory.BANNED));
+        ModerationResult rechazado = moderar("Aroma Lunar");
+        assertEquals(ModerationStatus.REJECTED, rechazado.getStatus());
+        assertEquals("Contiene lenguaje inapropiado: lunar", rechazado.getReason());
+
+        moderationService.publishDictionary(Map.of("lunar", ModerationWordCategory.SUSPICIOUS));
+        assertEquals(ModerationStatus.PENDING_REVIEW, moderar("Aroma Lunar").getStatus());
+    }
+
+    @Test
+    void moderarDuranteRecargasVeSiempreUnDiccionarioCompleto() throws Exception {
+        Map<String, ModerationWordCategory> conAmbas = Map.of(
+                "lunar", ModerationWordCategory.BANNED, "solar", ModerationWordCategory.BANNED);
+        Map<String, ModerationWordCategory> sinNinguna = Map.of("otra", ModerationWordCategory.BANNED);
+
+        AtomicBoolean activo = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> lectores = new ArrayList<>();
+        for (int h = 0; h < 7; h++) {
+            lectores.add(executor.submit(() -> {
+                while (activo.get()) {
+                    // Con cualquiera de los dos diccionarios ambas palabras se detectan juntas o ninguna
+                    String razon = moderar("Lunar solar").getReason();
+                    assertTrue(razon.equals("Contiene lenguaje inapropiado: lunar, solar")
+                            || razon.equals("Aprobado automáticamente"), razon);
+                }
+                return null;
+            }));
+        }
+
+        for (int i = 0; i < 500; i++) {
+            moderationService.publishDictionary(i % 2 == 0 ? conAmbas : sinNinguna);
+        }
+        activo.set(false);
+        for (Future<?> lector : lectores) {
+            lector.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private ModerationResult moderar(String nombre) {
+        return moderationService.moderatePerfume(nombre, DESCRIPCION, 50.0, 10, null);
+    }
+}
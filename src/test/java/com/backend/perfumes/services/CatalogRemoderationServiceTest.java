@@ -0,0 +1,150 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.model.*;
+import com.backend.perfumes.repositories.BrandRepository;
+import com.backend.perfumes.repositories.PerfumeRepository;
+import com.backend.perfumes.repositories.RemoderationJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Sin transacción de prueba: el coordinador y los hilos leen las filas ya confirmadas
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogRemoderationServiceTest {
+
+    private static final String DESCRIPCION = "Fragancia floral con notas de jazmín y vainilla";
+
+    @Autowired
+    private PerfumeRepository perfumeRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private RemoderationJobRepository remoderationJobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogRemoderationService service;
+
+    @BeforeEach
+    void setUp() {
+        CatalogSearchIndex index = new CatalogSearchIndex(perfumeRepository, new TransactionTemplate(transactionManager));
+        service = new CatalogRemoderationService(perfumeRepository, brandRepository, remoderationJobRepository,
+                new AutoModerationService(), index, transactionManager, 50, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        perfumeRepository.deleteAll();
+        brandRepository.deleteAll();
+        remoderationJobRepository.deleteAll();
+    }
+
+    @Test
+    void retiraDelCatalogoLoQueYaNoPasaLaModeracion() throws Exception {
+        List<Long> limpios = new ArrayList<>();
+        List<Long> prohibidos = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Long id = guardarAprobado(i % 3 == 0 ? "Estafa total " + i : "Aroma sereno " + i);
+            (i % 3 == 0 ? prohibidos : limpios).add(id);
+        }
+        Brand marcaProhibida = guardarMarcaAprobada("Marca estafa");
+        Brand marcaLimpia = guardarMarcaAprobada("Casa del Aroma");
+
+        RemoderationJob job = service.start("admin");
+        Map<String, Object> progreso = esperarFin();
+
+        assertEquals(RemoderationJobStatus.COMPLETED, progreso.get("status"));
+        assertEquals(300L, progreso.get("perfumesScanned"));
+        assertEquals(2L, progreso.get("brandsScanned"));
+        assertEquals(101L, progreso.get("rejected"));
+        assertEquals(job.getId(), progreso.get("id"));
+
+        for (Long id : prohibidos) {
+            Perfume perfume = perfumeRepository.findById(id).orElseThrow();
+            assertEquals(ModerationStatus.REJECTED, perfume.getModerationStatus());
+            assertEquals(ModerationPipeline.MODERATED_BY, perfume.getModeratedBy());
+        }
+        for (Long id : limpios) {
+            assertEquals(ModerationStatus.APPROVED, perfumeRepository.findById(id).orElseThrow().getModerationStatus());
+        }
+        assertEquals(ModerationStatus.REJECTED,
+                brandRepository.findById(marcaProhibida.getId()).orElseThrow().getModerationStatus());
+        assertEquals(ModerationStatus.APPROVED,
+                brandRepository.findById(marcaLimpia.getId()).orElseThrow().getModerationStatus());
+    }
+
+    @Test
+    void trasUnaCaidaContinuaDesdeElUltimoAvance() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            ids.add(guardarAprobado("Estafa total " + i));
+        }
+
+        // Trabajo que quedó RUNNING con las marcas hechas y los 80 primeros perfumes confirmados
+        RemoderationJob interrumpido = new RemoderationJob();
+        interrumpido.setStatus(RemoderationJobStatus.RUNNING);
+        interrumpido.setStartedBy("admin");
+        interrumpido.setBrandsCompleted(true);
+        interrumpido.setLastPerfumeId(ids.get(79));
+        interrumpido.setPerfumesScanned(80);
+        remoderationJobRepository.save(interrumpido);
+
+        service.run(null);
+        Map<String, Object> progreso = esperarFin();
+
+        assertEquals(RemoderationJobStatus.COMPLETED, progreso.get("status"));
+        assertEquals(120L, progreso.get("perfumesScanned"));
+        assertEquals(40L, progreso.get("rejected"));
+        for (int i = 0; i < ids.size(); i++) {
+            ModerationStatus esperado = i < 80 ? ModerationStatus.APPROVED : ModerationStatus.REJECTED;
+            assertEquals(esperado, perfumeRepository.findById(ids.get(i)).orElseThrow().getModerationStatus());
+        }
+        assertEquals(1, remoderationJobRepository.count());
+    }
+
+    private Map<String, Object> esperarFin() throws InterruptedException {
+        long limite = System.currentTimeMillis() + 30_000;
+        Map<String, Object> progreso = service.progress();
+        while (Boolean.TRUE.equals(progreso.get("running")) && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+            progreso = service.progress();
+        }
+        assertEquals(false, progreso.get("running"));
+        return progreso;
+    }
+
+    private Long guardarAprobado(String nombre) {
+        Perfume perfume = new Perfume();
+        perfume.setName(nombre);
+        perfume.setDescription(DESCRIPCION);
+        perfume.setPrice(50.0);
+        perfume.setStock(10);
+        perfume.setModerationStatus(ModerationStatus.APPROVED);
+        perfume.setModeratedBy("admin");
+        return perfumeRepository.save(perfume).getId();
+    }
+
+    private Brand guardarMarcaAprobada(String nombre) {
+        Brand brand = new Brand();
+        brand.setName(nombre);
+        brand.setDescription(DESCRIPCION);
+        brand.setModerationStatus(ModerationStatus.APPROVED);
+        return brandRepository.save(brand);
+    }
+}
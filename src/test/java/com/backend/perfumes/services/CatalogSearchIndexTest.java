@@ -0,0 +1,192 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.dto.PerfumeDTO;
+import com.backend.perfumes.model.Brand;
+import com.backend.perfumes.model.Category;
+import com.backend.perfumes.model.ModerationStatus;
+import com.backend.perfumes.model.Perfume;
+import com.backend.perfumes.repositories.PerfumeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CatalogSearchIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private final PerfumeRepository perfumeRepository = mock(PerfumeRepository.class);
+    private CatalogSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = nuevoIndice(perfumeRepository);
+    }
+
+    @Test
+    void buscaPorPrefijoYReflejaAltasCambiosYBajas() {
+        index.upsert(perfume(1L, "Rosa Imperial", "Floral y dulce", "Maison", "Floral"));
+        index.upsert(perfume(2L, "Bosque", "Notas de cedro", "Maison", "Amaderado"));
+
+        assertEquals(List.of(1L), ids(index, "ros"));
+        // Todos los términos deben coincidir, sin importar tildes ni mayúsculas
+        assertEquals(List.of(2L), ids(index, "MAISON cédro"));
+        assertEquals(List.of(2L, 1L), ids(index, null));
+
+        index.upsert(perfume(1L, "Jazmín Nocturno", "Floral y dulce", "Maison", "Floral"));
+        assertTrue(ids(index, "rosa").isEmpty());
+        assertEquals(List.of(1L), ids(index, "jazmin"));
+
+        index.remove(2L);
+        assertTrue(ids(index, "cedro").isEmpty());
+        assertTrue(index.findById(2L).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void renombrarMarcaOCategoriaActualizaLosDocumentos() {
+        index.upsert(perfume(1L, "Rosa", "Floral y dulce", "Maison", "Floral"));
+
+        index.onBrandRenamed(1L, "Atelier");
+        index.onCategoryRenamed(1L, "Oriental");
+
+        assertEquals(List.of(1L), ids(index, "atelier oriental"));
+        assertTrue(ids(index, "maison").isEmpty());
+        assertEquals("Oriental", index.findById(1L).orElseThrow().getCategoryName());
+    }
+
+    @Test
+    void arrancaDesdeElSnapshotYSeSincronizaConLoCambiadoDespues() {
+        when(perfumeRepository.findByModerationStatusAndIdGreaterThanOrderByIdAsc(
+                eq(ModerationStatus.APPROVED), eq(0L), any()))
+                .thenReturn(List.of(entidad(1L, "Rosa", ModerationStatus.APPROVED),
+                        entidad(2L, "Bosque", ModerationStatus.APPROVED),
+                        entidad(3L, "Cuero", ModerationStatus.APPROVED)));
+        index.inicializar();
+        PerfumeDTO original = index.findById(1L).orElseThrow();
+
+        // Después del snapshot: 2 deja de estar aprobado, 3 se borra y 4 se aprueba
+        PerfumeRepository despues = mock(PerfumeRepository.class);
+        when(despues.findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(any(), eq(0L), any()))
+                .thenReturn(List.of(entidad(2L, "Bosque", ModerationStatus.REJECTED),
+                        entidad(4L, "Ámbar", ModerationStatus.APPROVED)));
+        when(despues.findIdsByModerationStatus(ModerationStatus.APPROVED)).thenReturn(List.of(1L, 4L));
+
+        CatalogSearchIndex reiniciado = nuevoIndice(despues);
+        reiniciado.inicializar();
+
+        assertTrue(reiniciado.isReady());
+        assertEquals(original, reiniciado.findById(1L).orElseThrow());
+        assertTrue(reiniciado.findById(2L).isEmpty());
+        assertTrue(reiniciado.findById(3L).isEmpty());
+        assertEquals(List.of(4L), ids(reiniciado, "ambar"));
+        verify(despues, never()).findByModerationStatusAndIdGreaterThanOrderByIdAsc(any(), any(), any());
+    }
+
+    @Test
+    void elSnapshotPeriodicoSoloSeEscribeSiHuboCambios() {
+        index.inicializar();
+        index.upsert(perfume(7L, "Vetiver", "Notas verdes", "Maison", "Fresco"));
+
+        index.guardarSnapshotSiHayCambios();
+
+        PerfumeRepository despues = mock(PerfumeRepository.class);
+        when(despues.findIdsByModerationStatus(ModerationStatus.APPROVED)).thenReturn(List.of(7L));
+        CatalogSearchIndex reiniciado = nuevoIndice(despues);
+        reiniciado.inicializar();
+        assertEquals(List.of(7L), ids(reiniciado, "vetiver"));
+
+        long escrito = dir.resolve("indice.snapshot").toFile().lastModified();
+        dir.resolve("indice.snapshot").toFile().setLastModified(escrito - 60_000);
+        index.guardarSnapshotSiHayCambios();
+        assertEquals(escrito - 60_000, dir.resolve("indice.snapshot").toFile().lastModified());
+    }
+
+    @Test
+    void lasPaginasPorCursorRecorrenLoMismoQueLaBusquedaPorOffset() {
+        for (long id = 1; id <= 25; id++) {
+            // Unos coinciden en el nombre (puntúan más) y otros solo en la descripción
+            index.upsert(perfume(id, id % 3 == 0 ? "Rosa " + id : "Aroma " + id,
+                    "Notas de rosa y jazmín", "Casa", "Floral"));
+        }
+        index.upsert(perfume(99L, "Cuero", "Notas de tabaco", "Casa", "Amaderado"));
+
+        List<Long> porOffset = index.search("rosa", PageRequest.of(0, 100)).getContent().stream()
+                .map(PerfumeDTO::getId).toList();
+
+        List<Long> porCursor = new ArrayList<>();
+        List<CatalogSearchIndex.Hit> pagina = index.searchAfter("rosa", 0, null, 4);
+        while (!pagina.isEmpty()) {
+            pagina.forEach(hit -> porCursor.add(hit.perfume().getId()));
+            CatalogSearchIndex.Hit ultimo = pagina.get(pagina.size() - 1);
+            pagina = index.searchAfter("rosa", ultimo.score(), ultimo.perfume().getId(), 4);
+        }
+
+        assertEquals(25, porOffset.size());
+        assertEquals(porOffset, porCursor);
+        assertEquals(25, index.count("rosa"));
+        assertEquals(26, index.count(null));
+
+        // Una página intermedia ordena solo hasta su final pero ve el mismo orden y total
+        Page<PerfumeDTO> tercera = index.search("rosa", PageRequest.of(2, 4));
+        assertEquals(porOffset.subList(8, 12), tercera.getContent().stream().map(PerfumeDTO::getId).toList());
+        assertEquals(25, tercera.getTotalElements());
+
+        // Los borrados siguen en las listas de términos pero no cuentan
+        index.remove(porOffset.get(0));
+        assertEquals(24, index.count("rosa"));
+        assertEquals(porOffset.subList(1, 5), index.searchAfter("rosa", 0, null, 4).stream()
+                .map(hit -> hit.perfume().getId()).toList());
+    }
+
+    private CatalogSearchIndex nuevoIndice(PerfumeRepository repository) {
+        CatalogSearchIndex nuevo = new CatalogSearchIndex(repository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(nuevo, "snapshotPath", dir.resolve("indice.snapshot").toString());
+        return nuevo;
+    }
+
+    private static List<Long> ids(CatalogSearchIndex indice, String filtro) {
+        return indice.search(filtro, PageRequest.of(0, 100)).getContent().stream().map(PerfumeDTO::getId).toList();
+    }
+
+    private static Perfume entidad(Long id, String nombre, ModerationStatus estado) {
+        Brand marca = new Brand();
+        marca.setId(1L);
+        marca.setName("Maison");
+        Category categoria = new Category();
+        categoria.setId(1L);
+        categoria.setName("Floral");
+
+        Perfume perfume = new Perfume();
+        perfume.setId(id);
+        perfume.setName(nombre);
+        perfume.setDescription("Una fragancia de prueba");
+        perfume.setPrice(80.0);
+        perfume.setStock(5);
+        perfume.setBrand(marca);
+        perfume.setCategory(categoria);
+        perfume.setModerationStatus(estado);
+        return perfume;
+    }
+
+    static CatalogSearchIndex.IndexedPerfume perfume(Long id, String nombre, String descripcion,
+                                                     String marca, String categoria) {
+        return new CatalogSearchIndex.IndexedPerfume(id, nombre, descripcion, 50.0, 10, 100, null, null,
+                1L, marca, 1L, categoria, "/uploads/p" + id + ".jpg", "vendedor");
+    }
+}
@@ -0,0 +1,144 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.exceptions.BusinessException;
+import com.backend.perfumes.repositories.StoredBlobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sin transacción de prueba: las referencias se confirman en transacciones propias
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FileStorageServiceTest {
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0};
+
+    @TempDir
+    Path uploads;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ImageDerivativeService imageDerivativeService;
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() {
+        imageDerivativeService = new ImageDerivativeService(uploads.toString(), 0.8f, 1, 10, 25_000_000);
+        fileStorageService = new FileStorageService(uploads.toString(), storedBlobRepository,
+                imageDerivativeService, transactionManager, 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageDerivativeService.stop();
+        storedBlobRepository.deleteAll();
+    }
+
+    @Test
+    void guardaUnaSolaCopiaDelMismoContenido() throws Exception {
+        String primera = fileStorageService.storeFile(archivo("la-rosa.JPG", "misma imagen"));
+        String segunda = fileStorageService.storeFile(archivo("otra-rosa.jpg", "misma imagen"));
+        String distinta = fileStorageService.storeFile(archivo("jazmin.jpg", "otra imagen"));
+
+        assertEquals(primera, segunda);
+        assertNotEquals(primera, distinta);
+        assertTrue(primera.matches("/uploads/[0-9a-f]{64}\\.jpg"), primera);
+        assertEquals(2, ficherosGuardados());
+        assertEquals(2, storedBlobRepository.findByFileName(nombre(primera)).orElseThrow().getReferenceCount());
+    }
+
+    @Test
+    void soloBorraElFicheroConLaUltimaReferencia() throws Exception {
+        String url = fileStorageService.storeFile(archivo("la-rosa.jpg", "misma imagen"));
+        fileStorageService.storeFile(archivo("la-rosa.jpg", "misma imagen"));
+        Path fichero = uploads.resolve(nombre(url));
+
+        fileStorageService.deleteFile(url);
+        assertTrue(Files.exists(fichero));
+
+        fileStorageService.deleteFile(url);
+        assertFalse(Files.exists(fichero));
+        assertTrue(storedBlobRepository.findByFileName(nombre(url)).isEmpty());
+
+        // Vuelve a subirse después de borrado: se guarda de nuevo
+        assertEquals(url, fileStorageService.storeFile(archivo("la-rosa.jpg", "misma imagen")));
+        assertTrue(Files.exists(fichero));
+    }
+
+    @Test
+    void rechazaLoQueNoEsUnaImagenAunqueLoDiga() throws Exception {
+        MockMultipartFile falsa = new MockMultipartFile("file", "rosa.jpg", "image/jpeg",
+                "<html>no soy una imagen</html>".getBytes(StandardCharsets.UTF_8));
+
+        BusinessException error = assertThrows(BusinessException.class, () -> fileStorageService.storeFile(falsa));
+
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, error.getStatus());
+        assertEquals(0, ficherosGuardados());
+    }
+
+    @Test
+    void cortaLaSubidaAlPasarDelLimiteSinDejarRastro() throws Exception {
+        MockMultipartFile grande = archivo("grande.jpg", "x".repeat(2048));
+
+        BusinessException error = assertThrows(BusinessException.class, () -> fileStorageService.storeFile(grande));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, error.getStatus());
+        assertEquals(0, ficherosGuardados());
+        assertEquals(0, storedBlobRepository.count());
+    }
+
+    @Test
+    void laExtensionSaleDelContenido() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+
+        String url = fileStorageService.storeFile(new MockMultipartFile("file", "rosa.jpg", "image/jpeg", png));
+
+        assertTrue(url.endsWith(".png"), url);
+    }
+
+    @Test
+    void lasSubidasAnterioresSeBorranComoAntes() throws Exception {
+        Path antigua = Files.writeString(uploads.resolve("0d3b0e97_la-rosa.jpg"), "imagen antigua");
+
+        fileStorageService.deleteFile("/uploads/0d3b0e97_la-rosa.jpg");
+
+        assertFalse(Files.exists(antigua));
+    }
+
+    // Cabecera JPEG real seguida del texto: basta para que se reconozca el formato
+    private static MockMultipartFile archivo(String nombre, String contenido) {
+        byte[] texto = contenido.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[JPEG.length + texto.length];
+        System.arraycopy(JPEG, 0, bytes, 0, JPEG.length);
+        System.arraycopy(texto, 0, bytes, JPEG.length, texto.length);
+        return new MockMultipartFile("file", nombre, "image/jpeg", bytes);
+    }
+
+    private static String nombre(String url) {
+        return url.substring("/uploads/".length());
+    }
+
+    private long ficherosGuardados() throws Exception {
+        try (var ficheros = Files.list(uploads)) {
+            return ficheros.filter(Files::isRegularFile).count();
+        }
+    }
+}
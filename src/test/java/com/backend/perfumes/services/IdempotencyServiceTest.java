@@ -0,0 +1,180 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.dto.OrderResponseDTO;
+import com.backend.perfumes.exceptions.BusinessException;
+import com.backend.perfumes.repositories.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sin transacción de prueba: el checkout y su registro se confirman como en producción
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyService service;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(idempotencyRecordRepository, new ObjectMapper());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyRecordRepository.deleteAll();
+    }
+
+    @Test
+    void unReintentoRecibeLaRespuestaGuardadaSinRepetirElCheckout() {
+        AtomicInteger checkouts = new AtomicInteger();
+
+        IdempotencyService.Result primera = service.execute("cliente", "clave-1", "h1",
+                () -> checkout("cliente", "clave-1", "h1", 10L, checkouts));
+        IdempotencyService.Result reintento = service.execute("cliente", "clave-1", "h1",
+                () -> checkout("cliente", "clave-1", "h1", 11L, checkouts));
+
+        assertFalse(primera.replayed());
+        assertTrue(reintento.replayed());
+        assertEquals(primera.response(), reintento.response());
+        assertEquals(1, checkouts.get());
+
+        // La misma clave con otro cuerpo no se reutiliza
+        BusinessException error = assertThrows(BusinessException.class, () -> service.execute(
+                "cliente", "clave-1", "otro", () -> checkout("cliente", "clave-1", "otro", 12L, checkouts)));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, error.getStatus());
+        assertEquals(1, checkouts.get());
+    }
+
+    @Test
+    void unDuplicadoEnCursoEsperaAlOriginalEnLugarDeRepetirlo() throws Exception {
+        AtomicInteger checkouts = new AtomicInteger();
+        CountDownLatch enCheckout = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicReference<Thread> duplicado = new AtomicReference<>();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // El original no guarda registro: si el duplicado no esperase, ejecutaría su propio checkout
+            Future<IdempotencyService.Result> original = pool.submit(() -> service.execute("cliente", "clave-2", "h2",
+                    () -> {
+                        checkouts.incrementAndGet();
+                        enCheckout.countDown();
+                        await(liberar);
+                        return respuesta(20L);
+                    }));
+            assertTrue(enCheckout.await(5, TimeUnit.SECONDS));
+
+            Future<IdempotencyService.Result> repetido = pool.submit(() -> {
+                duplicado.set(Thread.currentThread());
+                return service.execute("cliente", "clave-2", "h2", () -> {
+                    checkouts.incrementAndGet();
+                    return respuesta(21L);
+                });
+            });
+            esperarBloqueado(duplicado);
+            liberar.countDown();
+
+            assertFalse(original.get(5, TimeUnit.SECONDS).replayed());
+            IdempotencyService.Result resultado = repetido.get(5, TimeUnit.SECONDS);
+            assertTrue(resultado.replayed());
+            assertEquals(20L, resultado.response().getOrderId());
+            assertEquals(1, checkouts.get());
+        } finally {
+            liberar.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void siOtraInstanciaGanaLaClaveSeDevuelveSuRespuesta() {
+        IdempotencyService.Result resultado = service.execute("cliente", "clave-3", "h3", () ->
+                transactionTemplate.execute(status -> {
+                    // Otra instancia confirma la misma clave mientras este checkout sigue abierto
+                    transactionTemplate.executeWithoutResult(otra ->
+                            service.saveRecord("cliente", "clave-3", "h3", respuesta(30L)));
+                    OrderResponseDTO propia = respuesta(31L);
+                    service.saveRecord("cliente", "clave-3", "h3", propia);
+                    return propia;
+                }));
+
+        assertTrue(resultado.replayed());
+        assertEquals(30L, resultado.response().getOrderId());
+        assertEquals(1, idempotencyRecordRepository.count());
+    }
+
+    @Test
+    void siLaClaveChocaSinGanadorGuardadoSePropagaElError() {
+        assertThrows(DataIntegrityViolationException.class, () -> service.execute("cliente", "clave-4", "h4", () -> {
+            throw new DataIntegrityViolationException("otra restricción");
+        }));
+        assertEquals(0, idempotencyRecordRepository.count());
+    }
+
+    private OrderResponseDTO checkout(String username, String key, String hash, Long orderId, AtomicInteger checkouts) {
+        checkouts.incrementAndGet();
+        return transactionTemplate.execute(status -> {
+            OrderResponseDTO response = respuesta(orderId);
+            service.saveRecord(username, key, hash, response);
+            return response;
+        });
+    }
+
+    private static OrderResponseDTO respuesta(Long orderId) {
+        OrderResponseDTO response = new OrderResponseDTO();
+        response.setOrderId(orderId);
+        response.setOrderNumber("ORD-" + orderId);
+        response.setStatus("PENDING");
+        response.setTotal(new BigDecimal("99.90"));
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void esperarBloqueado(AtomicReference<Thread> hilo) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < limite) {
+            Thread t = hilo.get();
+            if (t != null && t.getState() == Thread.State.WAITING) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("El duplicado no llegó a esperar al checkout original");
+    }
+}
@@ -0,0 +1,107 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.model.ImageVariant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageDerivativeServiceTest {
+
+    @TempDir
+    Path uploads;
+
+    private ImageDerivativeService service;
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void generaCadaVarianteConservandoLaProporcion() throws IOException {
+        service = new ImageDerivativeService(uploads.toString(), 0.8f, 1, 10, 25_000_000);
+        guardarPng("perfume.png", 2000, 1000);
+
+        assertEquals(3, service.generate("perfume.png"));
+
+        assertDimensiones(ImageVariant.THUMB, 200, 100);
+        assertDimensiones(ImageVariant.CARD, 480, 240);
+        assertDimensiones(ImageVariant.DETAIL, 1080, 540);
+    }
+
+    @Test
+    void siLaVarianteNoExisteSirveElOriginalYLaGeneraAparte() throws Exception {
+        service = new ImageDerivativeService(uploads.toString(), 0.8f, 1, 10, 25_000_000);
+        guardarPng("marca.png", 300, 400);
+
+        assertNull(service.resolve("marca.png", ImageVariant.CARD));
+
+        Path variante = null;
+        long limite = System.currentTimeMillis() + 10_000;
+        while (variante == null && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+            variante = service.resolve("marca.png", ImageVariant.CARD);
+        }
+        assertNotNull(variante);
+        // Más pequeña que la caja: se recodifica sin ampliarla
+        assertEquals(300, ImageIO.read(variante.toFile()).getWidth());
+
+        service.delete("marca.png");
+        assertFalse(Files.exists(variante));
+    }
+
+    @Test
+    void ignoraFormatosQueImageIoNoLee() throws IOException {
+        service = new ImageDerivativeService(uploads.toString(), 0.8f, 1, 10, 25_000_000);
+        Files.write(uploads.resolve("foto.webp"), new byte[]{'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'});
+
+        assertEquals(0, service.generate("foto.webp"));
+    }
+
+    @Test
+    void noDecodificaImagenesConDemasiadosPixeles() throws IOException {
+        service = new ImageDerivativeService(uploads.toString(), 0.8f, 1, 10, 10_000);
+        guardarPng("perfume.png", 200, 100);
+
+        assertEquals(0, service.generate("perfume.png"));
+        assertFalse(Files.exists(uploads.resolve("derivatives")));
+    }
+
+    @Test
+    void noReintentaEnCadaPeticionLoQueNoSePuedeReducir() throws Exception {
+        service = new ImageDerivativeService(uploads.toString(), 0.8f, 1, 10, 25_000_000);
+        Files.writeString(uploads.resolve("nota.jpg"), "no es una imagen");
+
+        assertNull(service.resolve("nota.jpg", ImageVariant.THUMB));
+        long limite = System.currentTimeMillis() + 10_000;
+        while (service.completedTasks() < 1 && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertNull(service.resolve("nota.jpg", ImageVariant.CARD));
+        }
+        Thread.sleep(100);
+        assertEquals(1, service.completedTasks());
+    }
+
+    private void guardarPng(String nombre, int ancho, int alto) throws IOException {
+        BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_ARGB);
+        ImageIO.write(imagen, "png", uploads.resolve(nombre).toFile());
+    }
+
+    private void assertDimensiones(ImageVariant variante, int ancho, int alto) throws IOException {
+        Path ruta = uploads.resolve("derivatives").resolve(variante.param()).resolve("perfume.png.jpg");
+        BufferedImage imagen = ImageIO.read(ruta.toFile());
+        assertEquals(ancho, imagen.getWidth());
+        assertEquals(alto, imagen.getHeight());
+    }
+}
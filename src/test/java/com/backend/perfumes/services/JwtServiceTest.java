@@ -0,0 +1,88 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.model.Role;
+import com.backend.perfumes.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(
+            "clave-de-pruebas-de-al-menos-32-bytes!!".getBytes(StandardCharsets.UTF_8));
+
+    private final User vendedor = usuario(1L, "vendedor");
+
+    @Test
+    void unTokenValidoDevuelveSusClaimsYEsValidoParaSuUsuario() {
+        JwtService jwtService = nuevoServicio(60_000);
+        String token = jwtService.generateToken(null, vendedor);
+
+        Claims claims = jwtService.parseVerifiedClaims(token);
+
+        assertEquals("vendedor", claims.getSubject());
+        assertEquals("VENDEDOR", claims.get("rol"));
+        assertEquals("vendedor@perfumes.com", claims.get("email"));
+        assertTrue(jwtService.isTokenValid(claims, vendedor));
+    }
+
+    @Test
+    void unTokenCaducadoSeRechazaAlParsear() {
+        String token = nuevoServicio(-1_000).generateToken(null, vendedor);
+
+        assertThrows(ExpiredJwtException.class, () -> nuevoServicio(60_000).parseVerifiedClaims(token));
+    }
+
+    @Test
+    void unaFirmaAlteradaSeRechazaAlParsear() {
+        JwtService jwtService = nuevoServicio(60_000);
+        String token = jwtService.generateToken(null, vendedor);
+
+        // Mismos claims firmados con otra clave
+        String otraClave = Jwts.builder()
+                .subject("vendedor")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("otra-clave-de-pruebas-de-32-bytes!!!!".getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        assertThrows(SignatureException.class, () -> jwtService.parseVerifiedClaims(otraClave));
+
+        // Payload de otro usuario con la firma original
+        String[] partes = token.split("\\.");
+        String ajeno = jwtService.generateToken(null, usuario(2L, "admin")).split("\\.")[1];
+        assertThrows(SignatureException.class,
+                () -> jwtService.parseVerifiedClaims(partes[0] + "." + ajeno + "." + partes[2]));
+    }
+
+    @Test
+    void unTokenDeOtroUsuarioNoEsValido() {
+        JwtService jwtService = nuevoServicio(60_000);
+        Claims claims = jwtService.parseVerifiedClaims(jwtService.generateToken(null, vendedor));
+
+        assertFalse(jwtService.isTokenValid(claims, usuario(2L, "admin")));
+    }
+
+    private static JwtService nuevoServicio(long expirationMs) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", expirationMs);
+        jwtService.init();
+        return jwtService;
+    }
+
+    private static User usuario(Long id, String username) {
+        User user = new User("Nombre", "Apellido", username + "@perfumes.com", "123", Role.VENDEDOR);
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
@@ -0,0 +1,193 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.dto.ModerationResult;
+import com.backend.perfumes.model.ModerationStatus;
+import com.backend.perfumes.model.Perfume;
+import com.backend.perfumes.repositories.BrandRepository;
+import com.backend.perfumes.repositories.PerfumeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Sin transacción de prueba: los hilos de moderación deben ver las filas ya confirmadas
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ModerationPipelineTest {
+
+    private static final String DESCRIPCION = "Fragancia floral con notas de jazmín y vainilla";
+
+    @Autowired
+    private PerfumeRepository perfumeRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ModerationPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+        perfumeRepository.deleteAll();
+    }
+
+    @Test
+    void moderaEnLoteLoQueEstaEnCola() throws Exception {
+        pipeline = nuevoPipeline(100, 2, 20);
+        pipeline.start();
+
+        List<Long> aprobados = new ArrayList<>();
+        List<Long> rechazados = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            aprobados.add(guardarEnCola("Aroma sereno " + i));
+            rechazados.add(guardarEnCola("Estafa total " + i));
+        }
+        aprobados.forEach(id -> pipeline.submit(ModerationPipeline.Kind.PERFUME, id));
+        rechazados.forEach(id -> pipeline.submit(ModerationPipeline.Kind.PERFUME, id));
+
+        esperarProcesados(60);
+
+        for (Long id : aprobados) {
+            Perfume perfume = perfumeRepository.findById(id).orElseThrow();
+            assertEquals(ModerationStatus.APPROVED, perfume.getModerationStatus());
+            assertEquals(ModerationPipeline.MODERATED_BY, perfume.getModeratedBy());
+        }
+        for (Long id : rechazados) {
+            assertEquals(ModerationStatus.REJECTED, perfumeRepository.findById(id).orElseThrow().getModerationStatus());
+        }
+        Map<String, Object> metrics = pipeline.metrics();
+        assertEquals(60L, metrics.get("submitted"));
+        assertEquals(0L, metrics.get("failed"));
+    }
+
+    @Test
+    void conLaColaLlenaModeraQuienPublica() {
+        // Sin hilos arrancados la cola no se vacía: a partir del segundo elemento no hay sitio
+        pipeline = nuevoPipeline(1, 1, 10);
+        pipeline.start();
+        pipeline.stop();
+
+        Long id = guardarEnCola("Aroma sereno");
+        pipeline.submit(ModerationPipeline.Kind.PERFUME, id);
+
+        assertEquals(ModerationStatus.APPROVED, perfumeRepository.findById(id).orElseThrow().getModerationStatus());
+        assertEquals(1L, pipeline.metrics().get("callerRuns"));
+    }
+
+    @Test
+    void respetaLaDecisionDeUnAdministradorTomadaMientrasEsperaba() {
+        pipeline = nuevoPipeline(1, 1, 10);
+
+        Long id = guardarEnCola("Estafa total");
+        Perfume perfume = perfumeRepository.findById(id).orElseThrow();
+        perfume.setModerationStatus(ModerationStatus.APPROVED);
+        perfume.setModeratedBy("admin");
+        perfumeRepository.save(perfume);
+
+        pipeline.submit(ModerationPipeline.Kind.PERFUME, id);
+
+        Perfume resultado = perfumeRepository.findById(id).orElseThrow();
+        assertEquals(ModerationStatus.APPROVED, resultado.getModerationStatus());
+        assertEquals("admin", resultado.getModeratedBy());
+        assertNull(resultado.getModerationDate());
+    }
+
+    @Test
+    void reintentaUnLoteFallidoHastaQueSaleBien() throws Exception {
+        AtomicInteger fallosPendientes = new AtomicInteger(1);
+        pipeline = nuevoPipeline(10, 1, 10, fallaMientras(fallosPendientes));
+
+        // Sin hilos arrancados modera quien publica, y el fallo queda para reintentar
+        Long id = guardarEnCola("Aroma sereno");
+        pipeline.submit(ModerationPipeline.Kind.PERFUME, id);
+        assertEquals(ModerationStatus.PENDING_REVIEW, perfumeRepository.findById(id).orElseThrow().getModerationStatus());
+        assertEquals(1L, pipeline.metrics().get("retried"));
+
+        pipeline.start();
+        pipeline.retryFailed();
+        esperarProcesados(1);
+
+        assertEquals(ModerationStatus.APPROVED, perfumeRepository.findById(id).orElseThrow().getModerationStatus());
+        assertEquals(0L, pipeline.metrics().get("failed"));
+    }
+
+    @Test
+    void abandonaTrasElMaximoDeReintentos() throws Exception {
+        pipeline = nuevoPipeline(10, 1, 10, fallaMientras(new AtomicInteger(Integer.MAX_VALUE)));
+        pipeline.start();
+
+        Long id = guardarEnCola("Aroma sereno");
+        pipeline.submit(ModerationPipeline.Kind.PERFUME, id);
+
+        long limite = System.currentTimeMillis() + 30_000;
+        while ((long) pipeline.metrics().get("failed") < 1 && System.currentTimeMillis() < limite) {
+            pipeline.retryFailed();
+            Thread.sleep(20);
+        }
+
+        assertEquals(1L, pipeline.metrics().get("failed"));
+        assertEquals(2L, pipeline.metrics().get("retried"));
+        assertEquals(0, pipeline.metrics().get("awaitingRetry"));
+        // Sigue en cola en la base para la recuperación del siguiente arranque
+        assertEquals(ModerationStatus.PENDING_REVIEW, perfumeRepository.findById(id).orElseThrow().getModerationStatus());
+    }
+
+    private ModerationPipeline nuevoPipeline(int capacidad, int hilos, int lote) {
+        return nuevoPipeline(capacidad, hilos, lote, new AutoModerationService());
+    }
+
+    private ModerationPipeline nuevoPipeline(int capacidad, int hilos, int lote, AutoModerationService moderacion) {
+        CatalogSearchIndex index = new CatalogSearchIndex(perfumeRepository, new TransactionTemplate(transactionManager));
+        return new ModerationPipeline(perfumeRepository, brandRepository, moderacion, index,
+                transactionManager, capacidad, hilos, lote, 2);
+    }
+
+    // Simula un error transitorio de la base mientras queden fallos pendientes
+    private static AutoModerationService fallaMientras(AtomicInteger fallosPendientes) {
+        return new AutoModerationService() {
+            @Override
+            public ModerationResult moderatePerfume(String name, String description, Double price,
+                                                    Integer stock, String imageUrl) {
+                if (fallosPendientes.getAndDecrement() > 0) {
+                    throw new IllegalStateException("conexión perdida");
+                }
+                return super.moderatePerfume(name, description, price, stock, imageUrl);
+            }
+        };
+    }
+
+    private Long guardarEnCola(String nombre) {
+        Perfume perfume = new Perfume();
+        perfume.setName(nombre);
+        perfume.setDescription(DESCRIPCION);
+        perfume.setPrice(50.0);
+        perfume.setStock(10);
+        pipeline.markQueued(perfume);
+        return perfumeRepository.save(perfume).getId();
+    }
+
+    private void esperarProcesados(long total) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 30_000;
+        while ((long) pipeline.metrics().get("processed") < total && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+        assertEquals(total, pipeline.metrics().get("processed"));
+    }
+}
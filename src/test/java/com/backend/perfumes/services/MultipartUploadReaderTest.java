@@ -0,0 +1,78 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.exceptions.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MultipartUploadReaderTest {
+
+    private static final String BOUNDARY = "----limite";
+
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final MultipartUploadReader reader = new MultipartUploadReader(fileStorageService, 1024);
+
+    @Test
+    void entregaElFicheroAlAlmacenYDevuelveLosCampos() throws Exception {
+        when(fileStorageService.storeStream(any())).thenAnswer(invocation -> {
+            InputStream in = invocation.getArgument(0);
+            assertEquals("contenido", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            return "/uploads/abc.jpg";
+        });
+
+        MultipartUploadReader.Upload upload = reader.read(peticion(
+                campo("brand", "{\"name\":\"Rosa\"}") + fichero("imagen", "rosa.jpg", "contenido")), "imagen");
+
+        assertEquals("/uploads/abc.jpg", upload.fileUrl());
+        assertEquals("rosa.jpg", upload.originalFilename());
+        assertEquals("{\"name\":\"Rosa\"}", upload.fields().get("brand"));
+    }
+
+    @Test
+    void rechazaSinLeerSiElTamanoDeclaradoNoCabe() throws Exception {
+        MockHttpServletRequest request = peticion(fichero("imagen", "rosa.jpg", "x".repeat(70_000)));
+
+        BusinessException error = assertThrows(BusinessException.class, () -> reader.read(request, "imagen"));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, error.getStatus());
+        verifyNoInteractions(fileStorageService);
+    }
+
+    @Test
+    void liberaElFicheroSiFallaUnCampoPosterior() throws Exception {
+        when(fileStorageService.storeStream(any())).thenReturn("/uploads/abc.jpg");
+
+        BusinessException error = assertThrows(BusinessException.class, () -> reader.read(peticion(
+                fichero("imagen", "rosa.jpg", "contenido") + campo("brand", "x".repeat(20_000))), "imagen"));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, error.getStatus());
+        verify(fileStorageService).deleteFile("/uploads/abc.jpg");
+    }
+
+    private static MockHttpServletRequest peticion(String partes) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/files/image");
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.setContent((partes + "--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static String campo(String nombre, String valor) {
+        return "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + nombre + "\"\r\n\r\n"
+                + valor + "\r\n";
+    }
+
+    private static String fichero(String nombre, String archivo, String contenido) {
+        return "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + nombre + "\"; filename=\"" + archivo + "\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n"
+                + contenido + "\r\n";
+    }
+}
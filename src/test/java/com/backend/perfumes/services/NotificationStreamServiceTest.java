@@ -0,0 +1,68 @@
+package com.backend.perfumes.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Prueba de carga del registro SSE: miles de suscriptores concurrentes sin servlet real
+class NotificationStreamServiceTest {
+
+    private static final int USUARIOS = 2_000;
+    private static final int CONEXIONES_POR_USUARIO = 5;
+    private static final int HILOS = 32;
+
+    private final NotificationStreamService streamService = new NotificationStreamService(60_000);
+
+    @AfterEach
+    void tearDown() {
+        streamService.shutdown();
+    }
+
+    @Test
+    void registraYLiberaMilesDeSuscriptoresConcurrentes() throws Exception {
+        List<SseEmitter> emitters = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            int hilo = h;
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                for (int i = hilo; i < USUARIOS * CONEXIONES_POR_USUARIO; i += HILOS) {
+                    emitters.add(streamService.subscribe((long) (i % USUARIOS), 0));
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(USUARIOS * CONEXIONES_POR_USUARIO, streamService.subscriberCount());
+        for (long userId = 0; userId < USUARIOS; userId++) {
+            assertTrue(streamService.isSubscribed(userId));
+        }
+
+        // Un envío a una conexión cerrada la saca del registro
+        emitters.forEach(SseEmitter::complete);
+        streamService.heartbeat();
+
+        long limite = System.currentTimeMillis() + 30_000;
+        while (streamService.subscriberCount() > 0 && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, streamService.subscriberCount());
+        assertTrue(!streamService.isSubscribed(0L));
+    }
+}
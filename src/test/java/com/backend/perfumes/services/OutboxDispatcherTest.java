@@ -0,0 +1,133 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.model.Order;
+import com.backend.perfumes.model.OrderStatus;
+import com.backend.perfumes.model.OutboxEvent;
+import com.backend.perfumes.model.OutboxEventType;
+import com.backend.perfumes.model.OutboxStatus;
+import com.backend.perfumes.repositories.OrderRepository;
+import com.backend.perfumes.repositories.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Sin transacción de prueba: cada evento se confirma o revierte en su propia transacción.
+// Dialecto H2: el de PostgreSQL genera FOR NO KEY UPDATE SKIP LOCKED, que H2 no entiende
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxDispatcherTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final NotificationService notificationService = mock(NotificationService.class);
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void reintentaHastaElMaximoYLuegoLoMarcaFailed() {
+        OutboxDispatcher dispatcher = nuevoDispatcher(10, 3);
+        Order orden = guardarOrden("ORD-1");
+        Long id = guardarEvento(orden, OutboxEventType.ORDER_STATUS_CHANGED).getId();
+        doThrow(new IllegalStateException("SMTP caído")).when(notificationService)
+                .notifyOrderStatusUpdate(any(), any(), any());
+
+        for (int intento = 1; intento <= 3; intento++) {
+            dispatcher.dispatchPending();
+            OutboxEvent evento = outboxEventRepository.findById(id).orElseThrow();
+            assertEquals(intento, evento.getAttempts());
+            assertEquals(intento < 3 ? OutboxStatus.PENDING : OutboxStatus.FAILED, evento.getStatus());
+            assertEquals("SMTP caído", evento.getLastError());
+        }
+
+        // Ya en FAILED no se vuelve a intentar
+        dispatcher.dispatchPending();
+        verify(notificationService, times(3)).notifyOrderStatusUpdate(any(), any(), any());
+    }
+
+    @Test
+    void unEventoQueFallaNoRevierteNiRepiteAlResto() {
+        OutboxDispatcher dispatcher = nuevoDispatcher(10, 5);
+        Order mala = guardarOrden("ORD-MALA");
+        Order buena = guardarOrden("ORD-BUENA");
+        Long fallido = guardarEvento(mala, OutboxEventType.ORDER_STATUS_CHANGED).getId();
+        Long enviado = guardarEvento(buena, OutboxEventType.ORDER_STATUS_CHANGED).getId();
+        doAnswer(invocation -> {
+            // Escribe antes de fallar: esa escritura debe revertirse solo para este evento
+            guardarOrden("ORD-HUERFANA");
+            throw new IllegalStateException("fallo al insertar");
+        }).when(notificationService).notifyOrderStatusUpdate(argThat(o -> o.getId().equals(mala.getId())), any(), any());
+
+        dispatcher.dispatchPending();
+        dispatcher.dispatchPending();
+
+        assertEquals(OutboxStatus.SENT, outboxEventRepository.findById(enviado).orElseThrow().getStatus());
+        OutboxEvent evento = outboxEventRepository.findById(fallido).orElseThrow();
+        assertEquals(OutboxStatus.PENDING, evento.getStatus());
+        assertEquals(2, evento.getAttempts());
+        assertTrue(orderRepository.findAll().stream().noneMatch(o -> "ORD-HUERFANA".equals(o.getOrderNumber())));
+        verify(notificationService, times(1))
+                .notifyOrderStatusUpdate(argThat(o -> o.getId().equals(buena.getId())), eq("cliente"), any());
+    }
+
+    @Test
+    void recorreTodosLosLotesEnUnaPasada() {
+        OutboxDispatcher dispatcher = nuevoDispatcher(2, 5);
+        Order orden = guardarOrden("ORD-1");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(guardarEvento(orden, i == 0 ? OutboxEventType.ORDER_PAID : OutboxEventType.ORDER_STATUS_CHANGED).getId());
+        }
+
+        dispatcher.dispatchPending();
+
+        for (Long id : ids) {
+            assertEquals(OutboxStatus.SENT, outboxEventRepository.findById(id).orElseThrow().getStatus());
+        }
+        verify(notificationService, times(1)).notifySellerNewOrder(any());
+        verify(notificationService, times(5)).notifyOrderStatusUpdate(any(), any(), any());
+    }
+
+    private OutboxDispatcher nuevoDispatcher(int lote, int intentos) {
+        return new OutboxDispatcher(outboxEventRepository, orderRepository, notificationService,
+                transactionManager, lote, intentos);
+    }
+
+    private Order guardarOrden(String numero) {
+        Order orden = new Order();
+        orden.setOrderNumber(numero);
+        return orderRepository.save(orden);
+    }
+
+    private OutboxEvent guardarEvento(Order orden, OutboxEventType tipo) {
+        OutboxEvent evento = new OutboxEvent();
+        evento.setType(tipo);
+        evento.setOrderId(orden.getId());
+        evento.setOrderStatus(OrderStatus.CONFIRMED);
+        evento.setRecipientUsername("cliente");
+        return outboxEventRepository.save(evento);
+    }
+}
@@ -0,0 +1,86 @@
+package com.backend.perfumes.services;
+
+import com.backend.perfumes.repositories.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class UnreadNotificationCounterTest {
+
+    private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+    private final UnreadNotificationCounter counter = new UnreadNotificationCounter(notificationRepository, 600, 1000);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void respondeDesdeMemoriaTrasLaPrimeraCarga() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L);
+
+        assertEquals(3, counter.get(1L));
+        assertEquals(3, counter.get(1L));
+        verify(notificationRepository, times(1)).countByUserIdAndIsReadFalse(1L);
+    }
+
+    @Test
+    void actualizaElContadorAlConfirmar() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L);
+        counter.get(1L);
+
+        completar(TransactionSynchronization.STATUS_COMMITTED, () -> counter.recordCreated(List.of(1L)));
+        assertEquals(4, counter.get(1L));
+
+        completar(TransactionSynchronization.STATUS_COMMITTED, () -> counter.recordRead(1L, 1));
+        assertEquals(3, counter.get(1L));
+
+        completar(TransactionSynchronization.STATUS_COMMITTED, () -> counter.recordAllRead(1L));
+        assertEquals(0, counter.get(1L));
+        verify(notificationRepository, times(1)).countByUserIdAndIsReadFalse(1L);
+    }
+
+    @Test
+    void ignoraEscriturasRevertidas() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L);
+        counter.get(1L);
+
+        completar(TransactionSynchronization.STATUS_ROLLED_BACK, () -> counter.recordCreated(List.of(1L)));
+        assertEquals(3, counter.get(1L));
+    }
+
+    @Test
+    void noGuardaUnConteoHechoMientrasHayEscriturasPendientes() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L, 4L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        counter.recordCreated(List.of(1L));
+        // La lectura concurrente no sabe si la fila ya es visible: no la deja en caché
+        assertEquals(3, counter.get(1L));
+        finalizar(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(4, counter.get(1L));
+        assertEquals(4, counter.get(1L));
+        verify(notificationRepository, times(2)).countByUserIdAndIsReadFalse(1L);
+    }
+
+    private void completar(int status, Runnable escritura) {
+        TransactionSynchronizationManager.initSynchronization();
+        escritura.run();
+        finalizar(status);
+    }
+
+    private void finalizar(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -0,0 +1,55 @@
+package com.backend.perfumes.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadMetadataIndexTest {
+
+    private static final String SHA256_HOLA = "b221d9dbb083a7f33428d7c2a3c3198ae925614d70210e28716ccaa7cd4ddb79";
+
+    @TempDir
+    Path uploads;
+
+    @Test
+    void etagFuerteDelContenidoYTipoPorExtension() throws Exception {
+        UploadMetadataIndex index = new UploadMetadataIndex(uploads.toString());
+        Path antigua = Files.writeString(uploads.resolve("0d3b_la-rosa.JFIF"), "hola");
+        Path direccionada = Files.writeString(uploads.resolve(SHA256_HOLA + ".png"), "hola");
+
+        UploadMetadataIndex.FileMetadata metadata = index.lookup(antigua);
+        assertEquals("\"" + SHA256_HOLA + "\"", metadata.etag());
+        assertEquals("image/jpeg", metadata.contentType());
+        assertEquals(4, metadata.length());
+        assertFalse(metadata.contentAddressed());
+
+        UploadMetadataIndex.FileMetadata blob = index.lookup(direccionada);
+        assertEquals(metadata.etag(), blob.etag());
+        assertEquals("image/png", blob.contentType());
+        assertTrue(blob.contentAddressed());
+    }
+
+    @Test
+    void recalculaSiElFicheroCambiaYOlvidaLosBorrados() throws Exception {
+        UploadMetadataIndex index = new UploadMetadataIndex(uploads.toString());
+        Path fichero = Files.writeString(uploads.resolve("marca.jpg"), "hola");
+
+        UploadMetadataIndex.FileMetadata antes = index.lookup(fichero);
+        assertSame(antes, index.lookup(fichero));
+
+        Files.writeString(fichero, "adiós");
+        Files.setLastModifiedTime(fichero, FileTime.fromMillis(antes.lastModified() + 5_000));
+        UploadMetadataIndex.FileMetadata despues = index.lookup(fichero);
+        assertNotEquals(antes.etag(), despues.etag());
+        assertEquals(Files.size(fichero), despues.length());
+
+        Files.delete(fichero);
+        assertNull(index.lookup(fichero));
+        assertEquals(0, index.size());
+    }
+}
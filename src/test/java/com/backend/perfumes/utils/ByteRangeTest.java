@@ -0,0 +1,32 @@
+package com.backend.perfumes.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteRangeTest {
+
+    @Test
+    void interpretaTramosSufijosYAbiertos() {
+        assertEquals(List.of(new ByteRange(0, 99)), ByteRange.parse("bytes=0-99", 1000));
+        assertEquals(List.of(new ByteRange(900, 999)), ByteRange.parse("bytes=-100", 1000));
+        assertEquals(List.of(new ByteRange(500, 999)), ByteRange.parse("bytes=500-", 1000));
+        // El final se recorta al tamaño del fichero
+        assertEquals(List.of(new ByteRange(990, 999)), ByteRange.parse("bytes=990-5000", 1000));
+        assertEquals(List.of(new ByteRange(0, 9), new ByteRange(20, 29)), ByteRange.parse("bytes=0-9, 20-29", 1000));
+        assertEquals("bytes 20-29/1000", new ByteRange(20, 29).contentRange(1000));
+    }
+
+    @Test
+    void distingueEntreServirEnteroYNoSatisfacible() {
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("items=0-9", 1000));
+        assertNull(ByteRange.parse("bytes=9-0", 1000));
+        assertNull(ByteRange.parse("bytes=0-999,0-999", 1000));
+
+        assertEquals(List.of(), ByteRange.parse("bytes=1000-1200", 1000));
+        assertEquals(List.of(new ByteRange(0, 9)), ByteRange.parse("bytes=0-9,5000-6000", 1000));
+    }
+}
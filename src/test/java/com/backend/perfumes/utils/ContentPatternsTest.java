@@ -0,0 +1,70 @@
+package com.backend.perfumes.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentPatternsTest {
+
+    // Comprobaciones tal como las hacía AutoModerationService: tres búsquedas y String.matches
+    private static final Pattern URL_PATTERN = Pattern.compile("https?://[^\\s]+");
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b");
+    private static final Pattern PHONE_PATTERN = Pattern.compile("\\b\\d{9,15}\\b");
+
+    // Trozos que rozan los bordes de cada patrón: prefijos de URL, arrobas, rachas de dígitos, extensiones
+    private static final String[] FRAGMENTOS = {
+            "http://", "https://", "http:/", "ftp://", "://", "www.", "tienda", ".com", ".es", ".c",
+            "@", "a@b", "ventas@", "_%+-", ".", "-", "|", " ", "  ", "\n", "\t", "ñ", "é", "jazmín",
+            "1", "12345", "6789", "0000", "123456789", "1234567890123456", "+34", "á1", "1ñ",
+            ".jpg", ".JPEG", ".png", ".gif", ".bmp", ".webp", ".svg", "?w=200", "?", "/img", "#",
+            "Notas de vainilla", "Llámanos", "x", "A", "Z"
+    };
+
+    @Test
+    void detectaUrlsYContactos() {
+        assertTrue(ContentPatterns.containsUrlsOrContacts("Visita https://tienda.com ya"));
+        assertTrue(ContentPatterns.containsUrlsOrContacts("Escribe a ventas@tienda.es"));
+        assertTrue(ContentPatterns.containsUrlsOrContacts("Llama al 612345678"));
+        assertFalse(ContentPatterns.containsUrlsOrContacts("Fragancia floral con 12345 notas"));
+        assertFalse(ContentPatterns.containsUrlsOrContacts(null));
+
+        assertTrue(ContentPatterns.isValidImageUrl("https://cdn.tienda.com/a.JPG?w=200"));
+        assertFalse(ContentPatterns.isValidImageUrl("ftp://cdn.tienda.com/a.jpg"));
+        assertFalse(ContentPatterns.isValidImageUrl("https://cdn.tienda.com/a.svg"));
+    }
+
+    @Test
+    void equivaleALasComprobacionesAnteriores() {
+        Random random = new Random(20);
+        for (int i = 0; i < 50_000; i++) {
+            String texto = texto(random);
+            boolean esperado = URL_PATTERN.matcher(texto).find()
+                    || EMAIL_PATTERN.matcher(texto).find()
+                    || PHONE_PATTERN.matcher(texto).find();
+            assertEquals(esperado, ContentPatterns.containsUrlsOrContacts(texto), texto);
+
+            String url = (random.nextBoolean() ? "https://cdn.tienda.com/" : "") + texto;
+            assertEquals(esImagenValidaAntes(url), ContentPatterns.isValidImageUrl(url), url);
+        }
+    }
+
+    private static boolean esImagenValidaAntes(String url) {
+        if (url == null || url.trim().isEmpty()) return false;
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            return false;
+        }
+        return url.toLowerCase().matches(".*\\.(jpg|jpeg|png|gif|bmp|webp)(\\?.*)?$");
+    }
+
+    private static String texto(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int trozos = 1 + random.nextInt(12);
+        for (int i = 0; i < trozos; i++) {
+            sb.append(FRAGMENTOS[random.nextInt(FRAGMENTOS.length)]);
+        }
+        return sb.toString();
+    }
+}
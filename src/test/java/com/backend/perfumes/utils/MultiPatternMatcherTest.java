@@ -0,0 +1,67 @@
+package com.backend.perfumes.utils;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiPatternMatcherTest {
+
+    private static final String ALFABETO = "abcdeíñ ";
+
+    @Test
+    void encuentraApariciones_solapadas_ySinDistinguirMayusculas() {
+        MultiPatternMatcher<String> matcher = MultiPatternMatcher.compile(List.of("he", "she", "hers", "his"));
+
+        List<MultiPatternMatcher.Match<String>> matches = matcher.findAll("uSHErs", "This");
+
+        assertEquals(List.of("she", "he", "hers", "his"),
+                matches.stream().map(MultiPatternMatcher.Match::word).toList());
+        assertEquals(1, matches.get(0).start());
+        assertEquals(4, matches.get(0).end());
+        assertEquals(1, matches.get(3).field());
+        assertTrue(matcher.containsAny(null, "HIS"));
+        assertFalse(matcher.containsAny("ninguna"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000, 50_000})
+    void equivaleAlBucleConContains(int tamanoDiccionario) {
+        Random random = new Random(tamanoDiccionario);
+        Set<String> diccionario = new HashSet<>();
+        while (diccionario.size() < tamanoDiccionario) {
+            diccionario.add(texto(random, 2 + random.nextInt(6)));
+        }
+        MultiPatternMatcher<String> matcher = MultiPatternMatcher.compile(diccionario);
+
+        for (int i = 0; i < 200; i++) {
+            String nombre = texto(random, 20).toUpperCase();
+            String descripcion = texto(random, 300);
+
+            String nombreLower = nombre.toLowerCase();
+            String descripcionLower = descripcion.toLowerCase();
+            Set<String> esperadas = diccionario.stream()
+                    .filter(palabra -> nombreLower.contains(palabra) || descripcionLower.contains(palabra))
+                    .collect(Collectors.toSet());
+
+            Set<String> encontradas = matcher.findAll(nombre, descripcion).stream()
+                    .map(MultiPatternMatcher.Match::word)
+                    .collect(Collectors.toSet());
+
+            assertEquals(esperadas, encontradas);
+            assertEquals(!esperadas.isEmpty(), matcher.containsAny(nombre, descripcion));
+        }
+    }
+
+    private static String texto(Random random, int longitud) {
+        StringBuilder sb = new StringBuilder(longitud);
+        for (int i = 0; i < longitud; i++) {
+            sb.append(ALFABETO.charAt(random.nextInt(ALFABETO.length())));
+        }
+        return sb.toString();
+    }
+}